@@ -0,0 +1,295 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.benchmarks;
+
+import io.tylerchesley.sparkplugs.core.LifecycleEvent;
+import io.tylerchesley.sparkplugs.core.PluginClasses;
+import io.tylerchesley.sparkplugs.core.PluginDispatcher;
+
+/**
+ * Plugins and a dispatcher shaped like the Android adapter in the library, with a plain object
+ * standing in for the Activity.
+ */
+final class BenchmarkPlugins {
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private BenchmarkPlugins() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns a dispatcher with {@code count} plugins, of which {@code overridingPercent} percent
+     * override every lifecycle callback and the rest override none.
+     */
+    static Dispatcher newDispatcher(int count, int overridingPercent) {
+        final Dispatcher dispatcher = new Dispatcher(new Host());
+        final int overriding = count * overridingPercent / 100;
+        for (int i = 0; i < count; i++) {
+            dispatcher.add(i < overriding ? new CountingPlugin() : new NoOpPlugin());
+        }
+        return dispatcher;
+    }
+
+    static int callCount(Plugin plugin) {
+        return plugin instanceof CountingPlugin ? ((CountingPlugin) plugin).mCalls : 0;
+    }
+
+//------------------------------------------
+//  Interfaces
+//------------------------------------------
+
+    interface Plugin {
+
+        void onCreate(Host host, Object savedInstanceState);
+
+        void onStart(Host host);
+
+        void onRestart(Host host);
+
+        void onResume(Host host);
+
+        void onPause(Host host);
+
+        void onStop(Host host);
+
+        void onDestroy(Host host);
+
+        void onTrimMemory(Host host, int level);
+
+        void onLowMemory(Host host);
+
+        void onSaveInstanceState(Host host, Object outState);
+
+        void onRestoreInstanceState(Host host, Object savedInstanceState);
+
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    /**
+     * Stand-in for the Activity.
+     */
+    static final class Host {
+
+    }
+
+    static final class Dispatcher extends PluginDispatcher<Plugin, Host> {
+
+        private static final Class<?>[][] METHOD_PARAMETERS = {
+                {Host.class, Object.class},
+                {Host.class},
+                {Host.class},
+                {Host.class},
+                {Host.class},
+                {Host.class},
+                {Host.class},
+                {Host.class, int.class},
+                {Host.class},
+                {Host.class, Object.class},
+                {Host.class, Object.class}
+        };
+
+        Dispatcher(Host host) {
+            super(host);
+        }
+
+        @Override
+        protected int eventMask(Class<?> pluginClass) {
+            return PluginClasses.overriddenEvents(pluginClass, NoOpPlugin.class,
+                    METHOD_PARAMETERS);
+        }
+
+        @Override
+        protected void invoke(Plugin plugin, int event, Object argument) {
+            final Host host = getHost();
+            switch (event) {
+                case LifecycleEvent.CREATE:
+                    plugin.onCreate(host, argument);
+                    break;
+                case LifecycleEvent.START:
+                    plugin.onStart(host);
+                    break;
+                case LifecycleEvent.RESTART:
+                    plugin.onRestart(host);
+                    break;
+                case LifecycleEvent.RESUME:
+                    plugin.onResume(host);
+                    break;
+                case LifecycleEvent.PAUSE:
+                    plugin.onPause(host);
+                    break;
+                case LifecycleEvent.STOP:
+                    plugin.onStop(host);
+                    break;
+                case LifecycleEvent.DESTROY:
+                    plugin.onDestroy(host);
+                    break;
+                case LifecycleEvent.TRIM_MEMORY:
+                    plugin.onTrimMemory(host, (Integer) argument);
+                    break;
+                case LifecycleEvent.LOW_MEMORY:
+                    plugin.onLowMemory(host);
+                    break;
+                case LifecycleEvent.SAVE_INSTANCE_STATE:
+                    plugin.onSaveInstanceState(host, argument);
+                    break;
+                case LifecycleEvent.RESTORE_INSTANCE_STATE:
+                    plugin.onRestoreInstanceState(host, argument);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown event " + event);
+            }
+        }
+
+    }
+
+    /**
+     * Overrides nothing, like most plugins that only care about one or two events.
+     */
+    static class NoOpPlugin implements Plugin {
+
+        @Override
+        public void onCreate(Host host, Object savedInstanceState) {
+
+        }
+
+        @Override
+        public void onStart(Host host) {
+
+        }
+
+        @Override
+        public void onRestart(Host host) {
+
+        }
+
+        @Override
+        public void onResume(Host host) {
+
+        }
+
+        @Override
+        public void onPause(Host host) {
+
+        }
+
+        @Override
+        public void onStop(Host host) {
+
+        }
+
+        @Override
+        public void onDestroy(Host host) {
+
+        }
+
+        @Override
+        public void onTrimMemory(Host host, int level) {
+
+        }
+
+        @Override
+        public void onLowMemory(Host host) {
+
+        }
+
+        @Override
+        public void onSaveInstanceState(Host host, Object outState) {
+
+        }
+
+        @Override
+        public void onRestoreInstanceState(Host host, Object savedInstanceState) {
+
+        }
+
+    }
+
+    /**
+     * Overrides every callback and does a trivial amount of work in each.
+     */
+    static final class CountingPlugin extends NoOpPlugin {
+
+        int mCalls;
+
+        @Override
+        public void onCreate(Host host, Object savedInstanceState) {
+            mCalls++;
+        }
+
+        @Override
+        public void onStart(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onRestart(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onResume(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onPause(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onStop(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onDestroy(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onTrimMemory(Host host, int level) {
+            mCalls++;
+        }
+
+        @Override
+        public void onLowMemory(Host host) {
+            mCalls++;
+        }
+
+        @Override
+        public void onSaveInstanceState(Host host, Object outState) {
+            mCalls++;
+        }
+
+        @Override
+        public void onRestoreInstanceState(Host host, Object savedInstanceState) {
+            mCalls++;
+        }
+
+    }
+
+}
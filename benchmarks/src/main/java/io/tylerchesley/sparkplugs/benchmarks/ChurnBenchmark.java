@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import io.tylerchesley.sparkplugs.core.LifecycleEvent;
+import io.tylerchesley.sparkplugs.core.PluginDispatcher;
+
+/**
+ * Measures the cost of adding and removing plugins on a populated dispatcher, alone and interleaved
+ * with dispatch, as happens when plugins register and unregister themselves from callbacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChurnBenchmark {
+
+//------------------------------------------
+//  Parameters
+//------------------------------------------
+
+    @Param({"1", "10", "50"})
+    public int pluginCount;
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private BenchmarkPlugins.Dispatcher mDispatcher;
+    private BenchmarkPlugins.Plugin mOverridingPlugin;
+    private BenchmarkPlugins.Plugin mNoOpPlugin;
+
+//------------------------------------------
+//  Setup
+//------------------------------------------
+
+    @Setup
+    public void setUp() {
+        mDispatcher = BenchmarkPlugins.newDispatcher(pluginCount, 50);
+        mOverridingPlugin = new BenchmarkPlugins.CountingPlugin();
+        mNoOpPlugin = new BenchmarkPlugins.NoOpPlugin();
+    }
+
+//------------------------------------------
+//  Benchmarks
+//------------------------------------------
+
+    @Benchmark
+    public void addRemoveOverriding() {
+        mDispatcher.add(mOverridingPlugin);
+        mDispatcher.remove(mOverridingPlugin);
+    }
+
+    @Benchmark
+    public void addRemoveNoOp() {
+        mDispatcher.add(mNoOpPlugin);
+        mDispatcher.remove(mNoOpPlugin);
+    }
+
+    @Benchmark
+    public int addDispatchRemove() {
+        mDispatcher.add(mOverridingPlugin);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.remove(mOverridingPlugin);
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
+        return BenchmarkPlugins.callCount(mOverridingPlugin);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import io.tylerchesley.sparkplugs.core.LifecycleEvent;
+import io.tylerchesley.sparkplugs.core.PluginDispatcher;
+
+/**
+ * Measures lifecycle dispatch through {@link PluginDispatcher} for different plugin counts
+ * and different shares of plugins that actually override the callbacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+//------------------------------------------
+//  Parameters
+//------------------------------------------
+
+    @Param({"1", "10", "50"})
+    public int pluginCount;
+
+    @Param({"0", "20", "100"})
+    public int overridingPercent;
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private BenchmarkPlugins.Dispatcher mDispatcher;
+
+//------------------------------------------
+//  Setup
+//------------------------------------------
+
+    @Setup
+    public void setUp() {
+        mDispatcher = BenchmarkPlugins.newDispatcher(pluginCount, overridingPercent);
+    }
+
+//------------------------------------------
+//  Benchmarks
+//------------------------------------------
+
+    @Benchmark
+    public void resumePause() {
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
+    }
+
+    @Benchmark
+    public void fullLifecycle() {
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        mDispatcher.dispatch(LifecycleEvent.START, null);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
+        mDispatcher.dispatch(LifecycleEvent.STOP, null);
+        mDispatcher.dispatch(LifecycleEvent.RESTART, null);
+        mDispatcher.dispatch(LifecycleEvent.START, null);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
+        mDispatcher.dispatch(LifecycleEvent.STOP, null);
+        mDispatcher.dispatch(LifecycleEvent.DESTROY, null);
+    }
+
+}
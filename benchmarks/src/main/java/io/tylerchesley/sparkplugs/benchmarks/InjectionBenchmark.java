@@ -0,0 +1,221 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import dagger.Module;
+import dagger.ObjectGraph;
+import dagger.Provides;
+
+/**
+ * Measures Dagger injection into an activity-like target with a small but representative graph:
+ * application singletons, an unscoped presenter, lazy and provider injections, and an activity
+ * module added with {@link ObjectGraph#plus(Object...)}, as done by the library's DaggerPlugin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InjectionBenchmark {
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private ObjectGraph mApplicationGraph;
+    private ObjectGraph mActivityGraph;
+
+//------------------------------------------
+//  Setup
+//------------------------------------------
+
+    @Setup
+    public void setUp() {
+        mApplicationGraph = ObjectGraph.create(new ApplicationModule());
+        mActivityGraph = mApplicationGraph.plus(new ActivityModule());
+        mActivityGraph.inject(new Target());
+    }
+
+//------------------------------------------
+//  Benchmarks
+//------------------------------------------
+
+    /**
+     * Injection from a warm, cached activity graph.
+     */
+    @Benchmark
+    public Target inject() {
+        return mActivityGraph.inject(new Target());
+    }
+
+    /**
+     * Creating the activity graph and injecting, as on every activity creation without caching.
+     */
+    @Benchmark
+    public Target plusAndInject() {
+        return mApplicationGraph.plus(new ActivityModule()).inject(new Target());
+    }
+
+    /**
+     * Creating both graphs and injecting, as on a cold start.
+     */
+    @Benchmark
+    public Target createPlusAndInject() {
+        return ObjectGraph.create(new ApplicationModule()).plus(new ActivityModule())
+                .inject(new Target());
+    }
+
+//------------------------------------------
+//  Modules
+//------------------------------------------
+
+    @Module(library = true)
+    static final class ApplicationModule {
+
+        @Provides
+        @Singleton
+        Config provideConfig() {
+            return new Config("https://example.com", 16);
+        }
+
+        @Provides
+        @Singleton
+        Client provideClient(Config config) {
+            return new Client(config);
+        }
+
+        @Provides
+        @Singleton
+        Database provideDatabase() {
+            return new Database();
+        }
+
+        @Provides
+        @Singleton
+        Parser provideParser() {
+            return new Parser();
+        }
+
+    }
+
+    @Module(addsTo = ApplicationModule.class, injects = Target.class)
+    static final class ActivityModule {
+
+        @Provides
+        String provideTitle(Config config) {
+            return config.mEndpoint;
+        }
+
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    static final class Config {
+
+        final String mEndpoint;
+        final int mPoolSize;
+
+        Config(String endpoint, int poolSize) {
+            mEndpoint = endpoint;
+            mPoolSize = poolSize;
+        }
+
+    }
+
+    static final class Client {
+
+        final Config mConfig;
+
+        Client(Config config) {
+            mConfig = config;
+        }
+
+    }
+
+    static final class Database {
+
+        Database() {
+
+        }
+
+    }
+
+    static final class Parser {
+
+        Parser() {
+
+        }
+
+    }
+
+    static final class Repository {
+
+        final Client mClient;
+        final Database mDatabase;
+        final Parser mParser;
+
+        @Inject
+        Repository(Client client, Database database, Parser parser) {
+            mClient = client;
+            mDatabase = database;
+            mParser = parser;
+        }
+
+    }
+
+    static final class Presenter {
+
+        final Repository mRepository;
+        final String mTitle;
+
+        @Inject
+        Presenter(Repository repository, String title) {
+            mRepository = repository;
+            mTitle = title;
+        }
+
+    }
+
+    /**
+     * Stand-in for an injected activity.
+     */
+    static final class Target {
+
+        @Inject Presenter mPresenter;
+        @Inject Repository mRepository;
+        @Inject Lazy<Parser> mParser;
+        @Inject Provider<Presenter> mPresenters;
+        @Inject Config mConfig;
+
+    }
+
+}
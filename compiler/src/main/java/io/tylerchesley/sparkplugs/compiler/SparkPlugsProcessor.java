@@ -0,0 +1,460 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import io.tylerchesley.sparkplugs.core.DependsOn;
+import io.tylerchesley.sparkplugs.core.LifecycleEvent;
+import io.tylerchesley.sparkplugs.core.SparkPlugs;
+
+/**
+ * Generates a {@code SparkPlugInstaller} for every activity annotated with {@link SparkPlugs}.
+ *
+ * Each plugin type must be a public, concrete {@code SparkPlug} class with a public no-argument
+ * constructor. The installer adds the plugins in {@link DependsOn dependency} order and seeds
+ * {@code PluginClasses} with the event masks and dependencies computed here, so that registering
+ * them needs no reflection at runtime.
+ */
+public final class SparkPlugsProcessor extends AbstractProcessor {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final String ACTIVITY = "android.app.Activity";
+    private static final String SPARK_PLUG = "io.tylerchesley.android.sparkplugs.SparkPlug";
+    private static final String SPARK_PLUG_BASE =
+            "io.tylerchesley.android.sparkplugs.SparkPlugBase";
+    private static final String INSTALLER = "io.tylerchesley.android.sparkplugs.SparkPlugInstaller";
+    private static final String TARGET =
+            "io.tylerchesley.android.sparkplugs.SparkPluginableActivity";
+    private static final String PLUGIN_CLASSES = "io.tylerchesley.sparkplugs.core.PluginClasses";
+    private static final String SUFFIX = "$$SparkPlugInstaller";
+
+    /**
+     * Erased parameter types of each {@code SparkPlug} method, indexed by {@link LifecycleEvent}.
+     * Must match {@code SparkPlugActivityHelper.ActivityPluginDispatcher}.
+     */
+    private static final String[][] METHOD_PARAMETERS = {
+            {ACTIVITY, "android.os.Bundle"},
+            {ACTIVITY},
+            {ACTIVITY},
+            {ACTIVITY},
+            {ACTIVITY},
+            {ACTIVITY},
+            {ACTIVITY},
+            {ACTIVITY, "int"},
+            {ACTIVITY},
+            {ACTIVITY, "android.os.Bundle"},
+            {ACTIVITY, "android.os.Bundle"}
+    };
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private Elements mElements;
+    private Types mTypes;
+    private Filer mFiler;
+    private Messager mMessager;
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(SparkPlugs.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(SparkPlugs.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@SparkPlugs may only be used on classes.");
+                continue;
+            }
+
+            final TypeElement host = (TypeElement) element;
+            if (!isSubtype(host, ACTIVITY) || !isSubtype(host, TARGET)) {
+                error(host, "@SparkPlugs class %s must be an %s that implements %s, such as " +
+                        "SparkPlugActivity; installers are not run for other activities.",
+                        host.getQualifiedName(), ACTIVITY, TARGET);
+                continue;
+            }
+
+            final List<TypeElement> plugins = pluginTypes(host);
+            if (plugins == null) {
+                continue;
+            }
+
+            final List<TypeElement> ordered = order(host, plugins);
+            if (ordered == null) {
+                continue;
+            }
+
+            try {
+                write(host, ordered);
+            }
+            catch (IOException e) {
+                error(host, "Unable to write installer for %s: %s", host.getQualifiedName(),
+                        e.getMessage());
+            }
+        }
+        return true;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Returns the validated plugin types declared on the host, or null if any is invalid.
+     */
+    private List<TypeElement> pluginTypes(TypeElement host) {
+        final List<TypeElement> plugins = new ArrayList<TypeElement>();
+        boolean valid = true;
+        for (TypeMirror type : classValues(annotation(host, SparkPlugs.class.getName()))) {
+            final TypeElement plugin = (TypeElement) mTypes.asElement(type);
+            if (plugins.contains(plugin)) {
+                error(host, "%s is declared more than once.", plugin.getQualifiedName());
+                valid = false;
+            }
+            else if (validatePlugin(host, plugin)) {
+                plugins.add(plugin);
+            }
+            else {
+                valid = false;
+            }
+        }
+        return valid ? plugins : null;
+    }
+
+    private boolean validatePlugin(TypeElement host, TypeElement plugin) {
+        final Set<Modifier> modifiers = plugin.getModifiers();
+        if (plugin.getKind() != ElementKind.CLASS || modifiers.contains(Modifier.ABSTRACT)) {
+            error(host, "Plugin %s must be a concrete class.", plugin.getQualifiedName());
+            return false;
+        }
+
+        if (!modifiers.contains(Modifier.PUBLIC) || (plugin.getNestingKind().isNested() &&
+                !modifiers.contains(Modifier.STATIC))) {
+            error(host, "Plugin %s must be public and, if nested, static.",
+                    plugin.getQualifiedName());
+            return false;
+        }
+
+        if (!isSubtype(plugin, SPARK_PLUG)) {
+            error(host, "Plugin %s must implement %s.", plugin.getQualifiedName(), SPARK_PLUG);
+            return false;
+        }
+
+        for (ExecutableElement constructor :
+                ElementFilter.constructorsIn(plugin.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() &&
+                    constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        error(host, "Plugin %s must have a public no-argument constructor.",
+                plugin.getQualifiedName());
+        return false;
+    }
+
+    /**
+     * Sorts the plugins so that each follows the plugins it depends on, keeping declaration order
+     * otherwise. Returns null and reports an error if the dependencies form a cycle.
+     */
+    private List<TypeElement> order(TypeElement host, List<TypeElement> plugins) {
+        final int count = plugins.size();
+        final boolean[][] edges = new boolean[count][count];
+        for (int i = 0; i < count; i++) {
+            for (TypeMirror dependency : dependencies(plugins.get(i))) {
+                for (int j = 0; j < count; j++) {
+                    if (j != i && mTypes.isAssignable(plugins.get(j).asType(),
+                            mTypes.erasure(dependency))) {
+                        edges[i][j] = true;
+                    }
+                }
+            }
+        }
+
+        final List<TypeElement> ordered = new ArrayList<TypeElement>(count);
+        final boolean[] placed = new boolean[count];
+        while (ordered.size() < count) {
+            int next = -1;
+            for (int i = 0; i < count && next < 0; i++) {
+                if (!placed[i] && allPlaced(edges[i], placed)) {
+                    next = i;
+                }
+            }
+
+            if (next < 0) {
+                final StringBuilder cycle = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                    if (!placed[i]) {
+                        cycle.append(cycle.length() == 0 ? "" : ", ")
+                                .append(plugins.get(i).getQualifiedName());
+                    }
+                }
+                error(host, "Plugin dependency cycle among %s", cycle);
+                return null;
+            }
+
+            placed[next] = true;
+            ordered.add(plugins.get(next));
+        }
+        return ordered;
+    }
+
+    private static boolean allPlaced(boolean[] edges, boolean[] placed) {
+        for (int j = 0; j < edges.length; j++) {
+            if (edges[j] && !placed[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the types named by the nearest {@link DependsOn} on the class or its superclasses.
+     */
+    private List<TypeMirror> dependencies(TypeElement plugin) {
+        for (TypeElement type = plugin; type != null; type = superclass(type)) {
+            final AnnotationMirror dependsOn = annotation(type, DependsOn.class.getName());
+            if (dependsOn != null) {
+                return classValues(dependsOn);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Mirrors {@code PluginClasses.overriddenEvents}: events whose method is declared below
+     * {@code SparkPlugBase}, or every event for plugins that do not extend it.
+     */
+    private int eventMask(TypeElement plugin) {
+        if (!isSubtype(plugin, SPARK_PLUG_BASE)) {
+            return LifecycleEvent.ALL;
+        }
+
+        int mask = 0;
+        for (TypeElement type = plugin;
+             !type.getQualifiedName().contentEquals(SPARK_PLUG_BASE);
+             type = superclass(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                final int event = eventOf(method);
+                if (event >= 0) {
+                    mask |= LifecycleEvent.maskOf(event);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private int eventOf(ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            return -1;
+        }
+
+        final String name = method.getSimpleName().toString();
+        for (int event = 0; event < LifecycleEvent.COUNT; event++) {
+            if (name.equals(LifecycleEvent.name(event)) &&
+                    hasParameters(method, METHOD_PARAMETERS[event])) {
+                return event;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasParameters(ExecutableElement method, String[] typeNames) {
+        final List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() != typeNames.length) {
+            return false;
+        }
+
+        for (int i = 0; i < typeNames.length; i++) {
+            final TypeMirror type = mTypes.erasure(parameters.get(i).asType());
+            if (!type.toString().equals(typeNames[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(TypeElement host, List<TypeElement> plugins) throws IOException {
+        final PackageElement pkg = mElements.getPackageOf(host);
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String binaryName = mElements.getBinaryName(host).toString();
+        final String className =
+                binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) +
+                SUFFIX;
+
+        final StringBuilder source = new StringBuilder();
+        source.append("// Generated code from SparkPlugs. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("public final class ").append(className).append(" implements ")
+                .append(INSTALLER).append(" {\n\n");
+
+        source.append("    static {\n");
+        for (TypeElement plugin : plugins) {
+            final List<TypeMirror> dependencies = dependencies(plugin);
+            if (!allAccessible(dependencies, pkg)) {
+                // Leave this plugin to runtime reflection rather than emit code that won't compile.
+                continue;
+            }
+
+            source.append("        ").append(PLUGIN_CLASSES).append(".register(")
+                    .append(plugin.getQualifiedName()).append(".class, ")
+                    .append(eventMask(plugin));
+            for (TypeMirror dependency : dependencies) {
+                source.append(", ").append(mTypes.erasure(dependency)).append(".class");
+            }
+            source.append(");\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public void install(").append(TARGET).append(" target) {\n");
+        for (TypeElement plugin : plugins) {
+            source.append("        target.addActivityPlugin(new ")
+                    .append(plugin.getQualifiedName()).append("());\n");
+        }
+        source.append("    }\n\n}\n");
+
+        final String sourceName = packageName.isEmpty() ? className : packageName + "." +
+                className;
+        final JavaFileObject file = mFiler.createSourceFile(sourceName, host);
+        final Writer writer = file.openWriter();
+        try {
+            writer.write(source.toString());
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private boolean allAccessible(List<TypeMirror> types, PackageElement pkg) {
+        for (TypeMirror type : types) {
+            final Element element = mTypes.asElement(type);
+            if (!element.getModifiers().contains(Modifier.PUBLIC) &&
+                    !mElements.getPackageOf(element).equals(pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSubtype(TypeElement type, String superTypeName) {
+        final TypeElement superType = mElements.getTypeElement(superTypeName);
+        return superType != null &&
+                mTypes.isSubtype(mTypes.erasure(type.asType()), mTypes.erasure(superType.asType()));
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ?
+                (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the class literals of the annotation's {@code value} element.
+     */
+    private static List<TypeMirror> classValues(AnnotationMirror mirror) {
+        final List<TypeMirror> types = new ArrayList<TypeMirror>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                mirror.getElementValues().entrySet()) {
+            if (!entry.getKey().getSimpleName().contentEquals("value")) {
+                continue;
+            }
+
+            final Object value = entry.getValue().getValue();
+            if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    types.add((TypeMirror) ((AnnotationValue) item).getValue());
+                }
+            }
+            else {
+                types.add((TypeMirror) value);
+            }
+        }
+        return types;
+    }
+
+    private void error(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(message, args), element);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+/**
+ * Identifiers for the lifecycle events a {@link PluginDispatcher} dispatches.
+ *
+ * Events are small integers so they can index arrays and be combined into bit masks with
+ * {@link #maskOf(int)}.
+ */
+public final class LifecycleEvent {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    public static final int CREATE = 0;
+    public static final int START = 1;
+    public static final int RESTART = 2;
+    public static final int RESUME = 3;
+    public static final int PAUSE = 4;
+    public static final int STOP = 5;
+    public static final int DESTROY = 6;
+    public static final int TRIM_MEMORY = 7;
+    public static final int LOW_MEMORY = 8;
+    public static final int SAVE_INSTANCE_STATE = 9;
+    public static final int RESTORE_INSTANCE_STATE = 10;
+
+    public static final int COUNT = 11;
+
+    /**
+     * Mask with every event set.
+     */
+    public static final int ALL = (1 << COUNT) - 1;
+
+    private static final String[] METHOD_NAMES = {
+            "onCreate",
+            "onStart",
+            "onRestart",
+            "onResume",
+            "onPause",
+            "onStop",
+            "onDestroy",
+            "onTrimMemory",
+            "onLowMemory",
+            "onSaveInstanceState",
+            "onRestoreInstanceState"
+    };
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private LifecycleEvent() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns the name of the plugin method that receives the event, for example
+     * {@code onCreate}.
+     */
+    public static String name(int event) {
+        return METHOD_NAMES[event];
+    }
+
+    public static int maskOf(int event) {
+        return 1 << event;
+    }
+
+    public static boolean isSet(int mask, int event) {
+        return (mask & (1 << event)) != 0;
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-class plugin metadata, computed once and cached for the life of the process.
+ */
+public final class PluginClasses {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    /**
+     * Longest section name accepted by {@code android.os.Trace#beginSection(String)}.
+     */
+    private static final int MAX_SECTION_LENGTH = 127;
+
+    private static final String SECTION_PREFIX = "SparkPlug:";
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final Map<Class<?>, Integer> sEventMasks = new HashMap<Class<?>, Integer>();
+
+    private static final Map<Class<?>, String[]> sTraceSections =
+            new HashMap<Class<?>, String[]>();
+
+    private static final Map<Class<?>, Class<?>[]> sDependencies =
+            new HashMap<Class<?>, Class<?>[]>();
+
+    private static final Class<?>[] NO_DEPENDENCIES = new Class<?>[0];
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private PluginClasses() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns a mask of the {@link LifecycleEvent events} whose methods the plugin class
+     * overrides from the given no-op base class. Classes that do not extend the base class
+     * receive every event.
+     *
+     * @param parameterTypes the parameter types of each event method, indexed by event.
+     */
+    public static int overriddenEvents(Class<?> pluginClass, Class<?> baseClass,
+                                       Class<?>[][] parameterTypes) {
+        synchronized (sEventMasks) {
+            Integer mask = sEventMasks.get(pluginClass);
+            if (mask == null) {
+                mask = computeOverriddenEvents(pluginClass, baseClass, parameterTypes);
+                sEventMasks.put(pluginClass, mask);
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Returns the trace section name for each event of the given plugin class, for example
+     * {@code SparkPlug:FragmentPlugin#onCreate}.
+     */
+    public static String[] traceSections(Class<?> pluginClass) {
+        synchronized (sTraceSections) {
+            String[] sections = sTraceSections.get(pluginClass);
+            if (sections == null) {
+                final String className = pluginClass.getName();
+                final String simpleName = className.substring(className.lastIndexOf('.') + 1);
+                sections = new String[LifecycleEvent.COUNT];
+                for (int event = 0; event < LifecycleEvent.COUNT; event++) {
+                    final String section = SECTION_PREFIX + simpleName + "#" +
+                            LifecycleEvent.name(event);
+                    sections[event] = section.length() > MAX_SECTION_LENGTH ?
+                            section.substring(0, MAX_SECTION_LENGTH) : section;
+                }
+                sTraceSections.put(pluginClass, sections);
+            }
+            return sections;
+        }
+    }
+
+    /**
+     * Returns the plugin types the class declares with {@link DependsOn}, or an empty array.
+     */
+    public static Class<?>[] dependencies(Class<?> pluginClass) {
+        synchronized (sDependencies) {
+            Class<?>[] dependencies = sDependencies.get(pluginClass);
+            if (dependencies == null) {
+                final DependsOn dependsOn = pluginClass.getAnnotation(DependsOn.class);
+                dependencies = dependsOn == null ? NO_DEPENDENCIES : dependsOn.value();
+                sDependencies.put(pluginClass, dependencies);
+            }
+            return dependencies;
+        }
+    }
+
+    /**
+     * Seeds the cached metadata of a plugin class with values computed at build time, so that
+     * {@link #overriddenEvents} and {@link #dependencies} need no reflection for it. Values that
+     * are already cached are kept. Called from generated installers.
+     */
+    public static void register(Class<?> pluginClass, int eventMask, Class<?>... dependencies) {
+        synchronized (sEventMasks) {
+            if (!sEventMasks.containsKey(pluginClass)) {
+                sEventMasks.put(pluginClass, eventMask);
+            }
+        }
+
+        synchronized (sDependencies) {
+            if (!sDependencies.containsKey(pluginClass)) {
+                sDependencies.put(pluginClass,
+                        dependencies.length == 0 ? NO_DEPENDENCIES : dependencies);
+            }
+        }
+    }
+
+    private static int computeOverriddenEvents(Class<?> pluginClass, Class<?> baseClass,
+                                               Class<?>[][] parameterTypes) {
+        if (!baseClass.isAssignableFrom(pluginClass)) {
+            return LifecycleEvent.ALL;
+        }
+
+        int mask = 0;
+        for (int event = 0; event < LifecycleEvent.COUNT; event++) {
+            try {
+                final Method method = pluginClass.getMethod(LifecycleEvent.name(event),
+                        parameterTypes[event]);
+                if (method.getDeclaringClass() != baseClass) {
+                    mask |= LifecycleEvent.maskOf(event);
+                }
+            }
+            catch (NoSuchMethodException e) {
+                mask |= LifecycleEvent.maskOf(event);
+            }
+        }
+        return mask;
+    }
+
+}
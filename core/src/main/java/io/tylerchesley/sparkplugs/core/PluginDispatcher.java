@@ -0,0 +1,772 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Dispatches {@link LifecycleEvent lifecycle events} from a host to its plugins.
+ *
+ * Plugins are stored copy-on-write: every add or remove publishes a new snapshot and each event
+ * walks the snapshot that was current when it started. Plugins may therefore add or remove
+ * plugins, including themselves, from inside a callback. Changes take effect from the next
+ * event.
+ *
+ * Each event is dispatched from a compact array holding only the plugins whose
+ * {@link #eventMask(Class) event mask} includes it. Plugins run in registration order, except
+ * that a plugin annotated with {@link DependsOn} always runs after the registered plugins it
+ * depends on. The order is computed when plugins are added or removed, and a registration that
+ * would create a dependency cycle is rejected with an {@link IllegalStateException}.
+ *
+ * Plugins registered with {@link #addDeferred(Object)} receive nothing until
+ * {@link #attachDeferred()} is called. They are then brought up to the host's current state by
+ * replaying the create, start and resume events they missed.
+ *
+ * A plugin may declare, through {@link #backgroundEvents(Object)}, events it can safely receive
+ * off the dispatching thread. Those callbacks are submitted to an executor and run in parallel
+ * with the remaining plugins. Outstanding background callbacks are joined before the resume,
+ * pause, stop and destroy events, and before any later event is delivered to the same plugin.
+ * The create and start work of independent plugins can therefore overlap. A background callback
+ * waits for the background callbacks of its dependencies to finish first, while a callback on
+ * the dispatching thread joins all outstanding work if any of its dependencies is still running.
+ * An exception thrown by a background callback is rethrown on the dispatching thread when it is
+ * joined. Executors must run tasks in submission order for dependency waits to make progress.
+ *
+ * @param <P> the plugin type.
+ * @param <H> the host type, for example an Activity.
+ */
+public abstract class PluginDispatcher<P, H> {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final Object[] NO_PLUGINS = new Object[0];
+
+    private static final int STATE_INITIALIZED = 0;
+    private static final int STATE_CREATED = 1;
+    private static final int STATE_STARTED = 2;
+    private static final int STATE_RESUMED = 3;
+    private static final int STATE_DESTROYED = 4;
+
+    /**
+     * Events that wait for all outstanding background callbacks before they are dispatched.
+     */
+    private static final int JOIN_EVENTS = LifecycleEvent.maskOf(LifecycleEvent.RESUME) |
+            LifecycleEvent.maskOf(LifecycleEvent.PAUSE) |
+            LifecycleEvent.maskOf(LifecycleEvent.STOP) |
+            LifecycleEvent.maskOf(LifecycleEvent.DESTROY) |
+            LifecycleEvent.maskOf(LifecycleEvent.SAVE_INSTANCE_STATE);
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static volatile PluginTracer sDefaultTracer;
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Sets the tracer used by every dispatcher created from now on, or disables tracing for new
+     * dispatchers if null.
+     */
+    public static void setDefaultTracer(PluginTracer tracer) {
+        sDefaultTracer = tracer;
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final H mHost;
+
+    /**
+     * Plugins in registration order.
+     */
+    private Object[] mPlugins = NO_PLUGINS;
+
+    /**
+     * Plugins in dispatch order, which respects {@link DependsOn} declarations.
+     */
+    private Object[] mOrderedPlugins = NO_PLUGINS;
+
+    /**
+     * Registered plugins each plugin depends on. Only contains plugins with dependencies.
+     */
+    private Map<Object, Object[]> mDependencies = Collections.emptyMap();
+
+    /**
+     * One array per event holding, in registration order, only the plugins that handle that
+     * event. Replaced, never modified, whenever a plugin is added or removed.
+     */
+    private Object[][] mDispatchTables;
+
+    /**
+     * Timing slot for each entry in {@link #mDispatchTables}, or null when timing is disabled.
+     */
+    private int[][] mTimingSlots;
+
+    private PluginTimings mTimings;
+
+    /**
+     * Trace section name for each entry in {@link #mDispatchTables}, or null when tracing is
+     * disabled.
+     */
+    private String[][] mTraceSections;
+
+    private PluginTracer mTracer;
+
+    /**
+     * Whether each entry in {@link #mDispatchTables} runs in the background. An event's entry is
+     * null when none of its plugins do.
+     */
+    private boolean[][] mBackgroundTables;
+
+    private Executor mExecutor = PluginExecutors.shared();
+
+    /**
+     * Outstanding background callbacks by plugin. Only touched by the dispatching thread.
+     */
+    private final Map<Object, FutureTask<Void>> mPending =
+            new IdentityHashMap<Object, FutureTask<Void>>();
+
+    /**
+     * Plugins waiting for {@link #attachDeferred()}, in registration order.
+     */
+    private Object[] mDeferred = NO_PLUGINS;
+
+    private int mState = STATE_INITIALIZED;
+
+    /**
+     * Argument of the last create event, replayed to deferred plugins.
+     */
+    private Object mCreateArgument;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    protected PluginDispatcher(H host) {
+        if (host == null) {
+            throw new NullPointerException("Host may not be null.");
+        }
+
+        mHost = host;
+        mTimings = PluginTimings.getInstance();
+        mTracer = sDefaultTracer;
+        rebuildDispatchTables();
+    }
+
+//------------------------------------------
+//  Abstract Methods
+//------------------------------------------
+
+    /**
+     * Calls the method for the given event on the plugin.
+     *
+     * @param argument the argument passed to {@link #dispatch(int, Object)}.
+     */
+    protected abstract void invoke(P plugin, int event, Object argument);
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    public H getHost() {
+        return mHost;
+    }
+
+    /**
+     * Returns a mask of the events the given plugin class handles. Called once per plugin on
+     * registration; the default handles every event.
+     */
+    protected int eventMask(Class<?> pluginClass) {
+        return LifecycleEvent.ALL;
+    }
+
+    /**
+     * Returns a mask of the events the plugin may receive off the dispatching thread. Called
+     * once per plugin on registration; the default runs everything on the dispatching thread.
+     */
+    protected int backgroundEvents(P plugin) {
+        return 0;
+    }
+
+    /**
+     * Delivers the event to every plugin that handles it.
+     */
+    public void dispatch(int event, Object argument) {
+        updateState(event, argument);
+        if (!mPending.isEmpty() && LifecycleEvent.isSet(JOIN_EVENTS, event)) {
+            awaitBackgroundWork();
+        }
+
+        final Object[] plugins = mDispatchTables[event];
+        final PluginTimings timings = mTimings;
+        final PluginTracer tracer = mTracer;
+        final boolean[] background = mBackgroundTables[event];
+        if (timings == null && tracer == null && background == null) {
+            for (int i = 0; i < plugins.length; i++) {
+                if (!mPending.isEmpty() && mustJoinBefore(plugins[i])) {
+                    awaitBackgroundWork();
+                }
+                invoke(this.<P>cast(plugins[i]), event, argument);
+            }
+            return;
+        }
+
+        final int[] slots = timings == null ? null : mTimingSlots[event];
+        final String[] sections = tracer == null ? null : mTraceSections[event];
+        for (int i = 0; i < plugins.length; i++) {
+            final P plugin = cast(plugins[i]);
+            final boolean runInBackground = background != null && background[i];
+            if (!mPending.isEmpty() && (runInBackground ?
+                    mPending.containsKey(plugin) : mustJoinBefore(plugin))) {
+                awaitBackgroundWork();
+            }
+
+            final int slot = slots == null ? 0 : slots[i];
+            final String section = sections == null ? null : sections[i];
+            if (runInBackground) {
+                submit(plugin, event, argument, timings, slot, tracer, section);
+            }
+            else {
+                invokeInstrumented(plugin, event, argument, timings, slot, tracer, section);
+            }
+        }
+    }
+
+    /**
+     * Blocks until every outstanding background callback has finished. Rethrows the first
+     * exception thrown by one of them.
+     */
+    public void awaitBackgroundWork() {
+        if (mPending.isEmpty()) {
+            return;
+        }
+
+        final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(mPending.values());
+        mPending.clear();
+
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    /**
+     * Sets the executor background callbacks run on. Defaults to
+     * {@link PluginExecutors#shared()}.
+     */
+    public void setExecutor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor may not be null.");
+        }
+        mExecutor = executor;
+    }
+
+    public void add(P plugin) {
+        if (plugin == null) {
+            throw new NullPointerException("Plugin may not be null.");
+        }
+
+        final Object[] plugins = new Object[mPlugins.length + 1];
+        System.arraycopy(mPlugins, 0, plugins, 0, mPlugins.length);
+        plugins[mPlugins.length] = plugin;
+        publish(plugins);
+    }
+
+    public boolean remove(P plugin) {
+        final int deferredIndex = indexOf(mDeferred, plugin);
+        if (deferredIndex >= 0) {
+            mDeferred = removeAt(mDeferred, deferredIndex);
+            return true;
+        }
+
+        final int index = indexOf(mPlugins, plugin);
+        if (index < 0) {
+            return false;
+        }
+
+        publish(removeAt(mPlugins, index));
+        return true;
+    }
+
+    /**
+     * Registers a plugin that should not receive any event until {@link #attachDeferred()} is
+     * called. Deferred plugins are dropped if the host is destroyed before then.
+     */
+    public void addDeferred(P plugin) {
+        if (plugin == null) {
+            throw new NullPointerException("Plugin may not be null.");
+        }
+
+        if (mState == STATE_DESTROYED) {
+            return;
+        }
+
+        final Object[] deferred = new Object[mDeferred.length + 1];
+        System.arraycopy(mDeferred, 0, deferred, 0, mDeferred.length);
+        deferred[mDeferred.length] = plugin;
+        mDeferred = deferred;
+    }
+
+    public boolean hasDeferred() {
+        return mDeferred.length > 0;
+    }
+
+    /**
+     * Registers the deferred plugins, in order, and replays to each the create, start and resume
+     * events it missed given the host's current state.
+     */
+    public void attachDeferred() {
+        final Object[] deferred = mDeferred;
+        if (deferred.length == 0 || mState == STATE_DESTROYED) {
+            return;
+        }
+
+        mDeferred = NO_PLUGINS;
+        for (Object object : deferred) {
+            final P plugin = cast(object);
+            add(plugin);
+
+            final int mask = eventMask(plugin.getClass());
+            if (mState >= STATE_CREATED && LifecycleEvent.isSet(mask, LifecycleEvent.CREATE)) {
+                replay(plugin, LifecycleEvent.CREATE, mCreateArgument);
+            }
+            if (mState >= STATE_STARTED && LifecycleEvent.isSet(mask, LifecycleEvent.START)) {
+                replay(plugin, LifecycleEvent.START, null);
+            }
+            if (mState >= STATE_RESUMED && LifecycleEvent.isSet(mask, LifecycleEvent.RESUME)) {
+                replay(plugin, LifecycleEvent.RESUME, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the first registered plugin, in registration order, that is an instance of the
+     * given type, or null. Deferred plugins are only found once attached.
+     */
+    public <T> T getPlugin(Class<T> type) {
+        for (Object plugin : mPlugins) {
+            if (type.isInstance(plugin)) {
+                return type.cast(plugin);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the registered plugins in registration order.
+     */
+    public List<P> getPlugins() {
+        final Object[] plugins = mPlugins;
+        final List<P> list = new ArrayList<P>(plugins.length);
+        for (Object plugin : plugins) {
+            list.add(this.<P>cast(plugin));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Records the duration of every callback into the given timings, or stops recording if it
+     * is null. Defaults to {@link PluginTimings#getInstance()}.
+     */
+    public void setTimings(PluginTimings timings) {
+        mTimings = timings;
+        rebuildDispatchTables();
+    }
+
+    public PluginTimings getTimings() {
+        return mTimings;
+    }
+
+    /**
+     * Wraps every callback in a section of the given tracer, or stops tracing if it is null.
+     * Defaults to the tracer passed to {@link #setDefaultTracer(PluginTracer)}.
+     */
+    public void setTracer(PluginTracer tracer) {
+        mTracer = tracer;
+        rebuildDispatchTables();
+    }
+
+    public PluginTracer getTracer() {
+        return mTracer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cast(Object plugin) {
+        return (T) plugin;
+    }
+
+    private void updateState(int event, Object argument) {
+        switch (event) {
+            case LifecycleEvent.CREATE:
+                mState = STATE_CREATED;
+                mCreateArgument = argument;
+                break;
+            case LifecycleEvent.START:
+            case LifecycleEvent.PAUSE:
+                mState = STATE_STARTED;
+                break;
+            case LifecycleEvent.RESUME:
+                mState = STATE_RESUMED;
+                break;
+            case LifecycleEvent.STOP:
+                mState = STATE_CREATED;
+                break;
+            case LifecycleEvent.DESTROY:
+                mState = STATE_DESTROYED;
+                mCreateArgument = null;
+                mDeferred = NO_PLUGINS;
+                break;
+        }
+    }
+
+    private void replay(P plugin, int event, Object argument) {
+        final PluginTimings timings = mTimings;
+        final PluginTracer tracer = mTracer;
+        final int slot = timings == null ? 0 : timings.slotFor(plugin.getClass());
+        final String section = tracer == null ?
+                null : PluginClasses.traceSections(plugin.getClass())[event];
+        invokeInstrumented(plugin, event, argument, timings, slot, tracer, section);
+    }
+
+    private void submit(final P plugin, final int event, final Object argument,
+                        final PluginTimings timings, final int slot,
+                        final PluginTracer tracer, final String section) {
+        final List<FutureTask<Void>> dependencies = pendingDependencies(plugin);
+        final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (dependencies != null) {
+                    for (FutureTask<Void> dependency : dependencies) {
+                        awaitDependency(dependency);
+                    }
+                }
+                invokeInstrumented(plugin, event, argument, timings, slot, tracer, section);
+                return null;
+            }
+        });
+        mPending.put(plugin, task);
+        mExecutor.execute(task);
+    }
+
+    /**
+     * Returns whether outstanding background work must finish before the plugin receives a
+     * callback on the dispatching thread.
+     */
+    private boolean mustJoinBefore(Object plugin) {
+        if (mPending.containsKey(plugin)) {
+            return true;
+        }
+
+        final Object[] dependencies = mDependencies.get(plugin);
+        if (dependencies != null) {
+            for (Object dependency : dependencies) {
+                if (mPending.containsKey(dependency)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<FutureTask<Void>> pendingDependencies(Object plugin) {
+        final Object[] dependencies = mDependencies.get(plugin);
+        if (dependencies == null || mPending.isEmpty()) {
+            return null;
+        }
+
+        List<FutureTask<Void>> pending = null;
+        for (Object dependency : dependencies) {
+            final FutureTask<Void> task = mPending.get(dependency);
+            if (task != null) {
+                if (pending == null) {
+                    pending = new ArrayList<FutureTask<Void>>();
+                }
+                pending.add(task);
+            }
+        }
+        return pending;
+    }
+
+    private static void awaitDependency(FutureTask<Void> dependency) throws Exception {
+        try {
+            dependency.get();
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    private void invokeInstrumented(P plugin, int event, Object argument,
+                                    PluginTimings timings, int slot,
+                                    PluginTracer tracer, String section) {
+        if (tracer != null) {
+            tracer.beginSection(section);
+        }
+        final long start = System.nanoTime();
+        try {
+            invoke(plugin, event, argument);
+        }
+        finally {
+            if (timings != null) {
+                timings.record(slot, event, System.nanoTime() - start);
+            }
+            if (tracer != null) {
+                tracer.endSection();
+            }
+        }
+    }
+
+    private static int indexOf(Object[] plugins, Object plugin) {
+        for (int i = 0; i < plugins.length; i++) {
+            if (plugins[i].equals(plugin)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object[] removeAt(Object[] plugins, int index) {
+        if (plugins.length == 1) {
+            return NO_PLUGINS;
+        }
+
+        final Object[] result = new Object[plugins.length - 1];
+        System.arraycopy(plugins, 0, result, 0, index);
+        System.arraycopy(plugins, index + 1, result, index, result.length - index);
+        return result;
+    }
+
+    private void publish(Object[] plugins) {
+        final Map<Object, Object[]> dependencies = new IdentityHashMap<Object, Object[]>();
+        final Object[] ordered = order(plugins, dependencies);
+        mPlugins = plugins;
+        mOrderedPlugins = ordered;
+        mDependencies = dependencies;
+        rebuildDispatchTables();
+    }
+
+    /**
+     * Sorts the plugins so each comes after the registered plugins it depends on, keeping
+     * registration order wherever dependencies allow, and fills in each plugin's dependencies.
+     */
+    private static Object[] order(Object[] plugins, Map<Object, Object[]> dependencies) {
+        final int count = plugins.length;
+        int[][] edges = null;
+        for (int i = 0; i < count; i++) {
+            final Class<?>[] types = PluginClasses.dependencies(plugins[i].getClass());
+            if (types.length == 0) {
+                continue;
+            }
+
+            final List<Integer> indexes = new ArrayList<Integer>();
+            for (int j = 0; j < count; j++) {
+                if (j != i && isInstance(types, plugins[j])) {
+                    indexes.add(j);
+                }
+            }
+            if (indexes.isEmpty()) {
+                continue;
+            }
+
+            if (edges == null) {
+                edges = new int[count][];
+            }
+            edges[i] = new int[indexes.size()];
+            final Object[] instances = new Object[indexes.size()];
+            for (int k = 0; k < indexes.size(); k++) {
+                edges[i][k] = indexes.get(k);
+                instances[k] = plugins[indexes.get(k)];
+            }
+            dependencies.put(plugins[i], instances);
+        }
+
+        if (edges == null) {
+            return plugins;
+        }
+
+        final Object[] ordered = new Object[count];
+        final boolean[] placed = new boolean[count];
+        for (int position = 0; position < count; position++) {
+            int next = -1;
+            for (int i = 0; i < count && next < 0; i++) {
+                if (!placed[i] && allPlaced(edges[i], placed)) {
+                    next = i;
+                }
+            }
+
+            if (next < 0) {
+                final StringBuilder cycle = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                    if (!placed[i]) {
+                        cycle.append(cycle.length() == 0 ? "" : ", ")
+                                .append(plugins[i].getClass().getName());
+                    }
+                }
+                throw new IllegalStateException("Plugin dependency cycle among " + cycle);
+            }
+
+            placed[next] = true;
+            ordered[position] = plugins[next];
+        }
+        return ordered;
+    }
+
+    private static boolean isInstance(Class<?>[] types, Object plugin) {
+        for (Class<?> type : types) {
+            if (type.isInstance(plugin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean allPlaced(int[] indexes, boolean[] placed) {
+        if (indexes != null) {
+            for (int index : indexes) {
+                if (!placed[index]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void rebuildDispatchTables() {
+        final Object[] plugins = mOrderedPlugins;
+        final int pluginCount = plugins.length;
+        final int[] masks = new int[pluginCount];
+        for (int i = 0; i < pluginCount; i++) {
+            masks[i] = eventMask(plugins[i].getClass());
+        }
+
+        final PluginTimings timings = mTimings;
+        final int[] pluginSlots = timings == null ? null : new int[pluginCount];
+        if (timings != null) {
+            for (int i = 0; i < pluginCount; i++) {
+                pluginSlots[i] = timings.slotFor(plugins[i].getClass());
+            }
+        }
+
+        final boolean tracing = mTracer != null;
+        final String[][] pluginSections = tracing ? new String[pluginCount][] : null;
+        if (tracing) {
+            for (int i = 0; i < pluginCount; i++) {
+                pluginSections[i] = PluginClasses.traceSections(plugins[i].getClass());
+            }
+        }
+
+        final int[] backgroundMasks = new int[pluginCount];
+        for (int i = 0; i < pluginCount; i++) {
+            backgroundMasks[i] = backgroundEvents(this.<P>cast(plugins[i])) & masks[i];
+        }
+
+        final Object[][] tables = new Object[LifecycleEvent.COUNT][];
+        final boolean[][] backgroundTables = new boolean[LifecycleEvent.COUNT][];
+        final int[][] slots = timings == null ? null : new int[LifecycleEvent.COUNT][];
+        final String[][] sections = tracing ? new String[LifecycleEvent.COUNT][] : null;
+        for (int event = 0; event < LifecycleEvent.COUNT; event++) {
+            int count = 0;
+            for (int i = 0; i < pluginCount; i++) {
+                if (LifecycleEvent.isSet(masks[i], event)) {
+                    count++;
+                }
+            }
+
+            final Object[] table = count == 0 ? NO_PLUGINS : new Object[count];
+            final int[] tableSlots = timings == null ? null : new int[count];
+            final String[] tableSections = tracing ? new String[count] : null;
+            boolean[] tableBackground = null;
+            int index = 0;
+            for (int i = 0; i < pluginCount; i++) {
+                if (LifecycleEvent.isSet(masks[i], event)) {
+                    if (tableSlots != null) {
+                        tableSlots[index] = pluginSlots[i];
+                    }
+                    if (tableSections != null) {
+                        tableSections[index] = pluginSections[i][event];
+                    }
+                    if (LifecycleEvent.isSet(backgroundMasks[i], event)) {
+                        if (tableBackground == null) {
+                            tableBackground = new boolean[count];
+                        }
+                        tableBackground[index] = true;
+                    }
+                    table[index++] = plugins[i];
+                }
+            }
+            tables[event] = table;
+            backgroundTables[event] = tableBackground;
+            if (slots != null) {
+                slots[event] = tableSlots;
+            }
+            if (sections != null) {
+                sections[event] = tableSections;
+            }
+        }
+        mTimingSlots = slots;
+        mTraceSections = sections;
+        mBackgroundTables = backgroundTables;
+        mDispatchTables = tables;
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the process-wide executors that run plugin callbacks and plugin tasks off the host
+ * thread.
+ */
+public final class PluginExecutors {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int POOL_SIZE = Math.max(2, Math.min(CPU_COUNT, 4));
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int WARM_UP_POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private PluginExecutors() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns the shared bounded executor. Idle threads exit after a few seconds. When the queue
+     * is full, callbacks run on the submitting thread instead.
+     */
+    public static Executor shared() {
+        return SharedHolder.EXECUTOR;
+    }
+
+    /**
+     * Returns the shared executor for longer-running plugin tasks. It has a fixed number of
+     * threads and a priority queue, so every runnable executed on it must be {@link Comparable};
+     * smaller ones run first. Idle threads exit after a few seconds.
+     */
+    public static Executor tasks() {
+        return TasksHolder.EXECUTOR;
+    }
+
+    /**
+     * Returns the shared executor for speculative work, such as warming up objects before they
+     * are first needed. It has a small number of low-priority threads and an unbounded queue, so
+     * it never runs work on the submitting thread and never competes with plugin callbacks for
+     * the {@link #shared() shared} executor. Idle threads exit after a few seconds.
+     */
+    public static Executor warmUp() {
+        return WarmUpHolder.EXECUTOR;
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class SharedHolder {
+
+        static final Executor EXECUTOR = newExecutor();
+
+        private static ThreadPoolExecutor newExecutor() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                    new PluginThreadFactory("SparkPlug #"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+    }
+
+    private static final class TasksHolder {
+
+        static final Executor EXECUTOR = newExecutor();
+
+        private static ThreadPoolExecutor newExecutor() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<Runnable>(),
+                    new PluginThreadFactory("SparkPlug task #"));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+    }
+
+    private static final class WarmUpHolder {
+
+        static final Executor EXECUTOR = newExecutor();
+
+        private static ThreadPoolExecutor newExecutor() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(WARM_UP_POOL_SIZE,
+                    WARM_UP_POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new PluginThreadFactory("SparkPlug warm-up #", Thread.MIN_PRIORITY));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+    }
+
+    private static final class PluginThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger();
+        private final String mPrefix;
+        private final int mPriority;
+
+        PluginThreadFactory(String prefix) {
+            this(prefix, Thread.NORM_PRIORITY);
+        }
+
+        PluginThreadFactory(String prefix, int priority) {
+            mPrefix = prefix;
+            mPriority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, mPrefix + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(mPriority);
+            return thread;
+        }
+
+    }
+
+}
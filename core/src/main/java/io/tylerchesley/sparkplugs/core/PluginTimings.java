@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long each plugin callback takes, keyed by plugin class and lifecycle event.
+ *
+ * Storage for a plugin class is allocated when the class is first registered with a
+ * {@link PluginDispatcher}, so recording a callback only updates primitive counters and a
+ * fixed-bucket histogram. Timing is opt-in: call {@link #enable()} early, typically from
+ * {@code Application.onCreate()}, and every dispatcher created afterwards records into the
+ * shared instance.
+ */
+public final class PluginTimings {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    /**
+     * Bucket 0 holds callbacks under one microsecond, bucket {@code n} holds callbacks between
+     * {@code 2^(n-1)} and {@code 2^n} microseconds. The last bucket is unbounded.
+     */
+    static final int BUCKET_COUNT = 32;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static volatile PluginTimings sInstance;
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Enables timing for every {@link PluginDispatcher} created from now on and returns
+     * the shared instance.
+     */
+    public static synchronized PluginTimings enable() {
+        if (sInstance == null) {
+            sInstance = new PluginTimings();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Stops new dispatchers from recording. Dispatchers that already captured the shared
+     * instance keep recording into it.
+     */
+    public static synchronized void disable() {
+        sInstance = null;
+    }
+
+    /**
+     * Returns the shared instance, or null if timing has not been enabled.
+     */
+    public static PluginTimings getInstance() {
+        return sInstance;
+    }
+
+    static int bucketFor(long nanos) {
+        final long micros = nanos / 1000;
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    static long bucketUpperBoundNanos(int bucket) {
+        return (1L << bucket) * 1000;
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Map<Class<?>, Integer> mSlots = new HashMap<Class<?>, Integer>();
+    private final List<Class<?>> mPluginClasses = new ArrayList<Class<?>>();
+
+    private long[] mCounts = new long[INITIAL_CAPACITY * LifecycleEvent.COUNT];
+    private long[] mTotalNanos = new long[INITIAL_CAPACITY * LifecycleEvent.COUNT];
+    private long[] mMaxNanos = new long[INITIAL_CAPACITY * LifecycleEvent.COUNT];
+    private long[] mHistograms = new long[INITIAL_CAPACITY * LifecycleEvent.COUNT *
+            BUCKET_COUNT];
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public PluginTimings() {
+
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Returns the slot for the given plugin class, allocating counters for it on first use.
+     */
+    synchronized int slotFor(Class<?> pluginClass) {
+        Integer slot = mSlots.get(pluginClass);
+        if (slot == null) {
+            slot = mPluginClasses.size();
+            mPluginClasses.add(pluginClass);
+            mSlots.put(pluginClass, slot);
+            ensureCapacity(slot + 1);
+        }
+        return slot;
+    }
+
+    synchronized void record(int slot, int event, long nanos) {
+        final int index = slot * LifecycleEvent.COUNT + event;
+        mCounts[index]++;
+        mTotalNanos[index] += nanos;
+        if (nanos > mMaxNanos[index]) {
+            mMaxNanos[index] = nanos;
+        }
+        mHistograms[index * BUCKET_COUNT + bucketFor(nanos)]++;
+    }
+
+    /**
+     * Clears all recorded samples. Plugin classes keep their slots.
+     */
+    public synchronized void reset() {
+        Arrays.fill(mCounts, 0);
+        Arrays.fill(mTotalNanos, 0);
+        Arrays.fill(mMaxNanos, 0);
+        Arrays.fill(mHistograms, 0);
+    }
+
+    /**
+     * Returns a copy of every plugin class and event combination that has at least one sample.
+     */
+    public synchronized List<Entry> snapshot() {
+        final List<Entry> entries = new ArrayList<Entry>();
+        for (int slot = 0; slot < mPluginClasses.size(); slot++) {
+            for (int event = 0; event < LifecycleEvent.COUNT; event++) {
+                final int index = slot * LifecycleEvent.COUNT + event;
+                if (mCounts[index] == 0) {
+                    continue;
+                }
+
+                final long[] histogram = new long[BUCKET_COUNT];
+                System.arraycopy(mHistograms, index * BUCKET_COUNT, histogram, 0, BUCKET_COUNT);
+                entries.add(new Entry(mPluginClasses.get(slot), LifecycleEvent.name(event),
+                        mCounts[index], mTotalNanos[index], mMaxNanos[index], histogram));
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Prints a line per plugin callback with its sample count, total, p50, p99 and max time.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        final List<Entry> entries = snapshot();
+        writer.print(prefix);
+        writer.println("SparkPlug timings:");
+        if (entries.isEmpty()) {
+            writer.print(prefix);
+            writer.println("  (no samples)");
+            return;
+        }
+
+        for (Entry entry : entries) {
+            writer.print(prefix);
+            writer.print("  ");
+            writer.println(entry);
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        final int required = slots * LifecycleEvent.COUNT;
+        if (required <= mCounts.length) {
+            return;
+        }
+
+        final int capacity = Math.max(required, mCounts.length * 2);
+        mCounts = grow(mCounts, capacity);
+        mTotalNanos = grow(mTotalNanos, capacity);
+        mMaxNanos = grow(mMaxNanos, capacity);
+        mHistograms = grow(mHistograms, capacity * BUCKET_COUNT);
+    }
+
+    private static long[] grow(long[] array, int length) {
+        final long[] grown = new long[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    /**
+     * Immutable timing summary for one plugin class and lifecycle event.
+     */
+    public static final class Entry {
+
+        private final Class<?> mPluginClass;
+        private final String mEvent;
+        private final long mCount;
+        private final long mTotalNanos;
+        private final long mMaxNanos;
+        private final long[] mHistogram;
+
+        Entry(Class<?> pluginClass, String event, long count, long totalNanos, long maxNanos,
+              long[] histogram) {
+            mPluginClass = pluginClass;
+            mEvent = event;
+            mCount = count;
+            mTotalNanos = totalNanos;
+            mMaxNanos = maxNanos;
+            mHistogram = histogram;
+        }
+
+        public Class<?> getPluginClass() {
+            return mPluginClass;
+        }
+
+        public String getEvent() {
+            return mEvent;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * Returns an upper bound, accurate to a power of two, for the given percentile of
+         * callback durations in nanoseconds.
+         *
+         * @param percentile a value between 0 and 100.
+         */
+        public long getPercentileNanos(double percentile) {
+            final long target = (long) Math.ceil(mCount * percentile / 100d);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                seen += mHistogram[bucket];
+                if (seen >= target && seen > 0) {
+                    return Math.min(bucketUpperBoundNanos(bucket), mMaxNanos);
+                }
+            }
+            return mMaxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return mPluginClass.getName() + "#" + mEvent +
+                    " count=" + mCount +
+                    " total=" + formatMicros(mTotalNanos) +
+                    " p50=" + formatMicros(getPercentileNanos(50)) +
+                    " p99=" + formatMicros(getPercentileNanos(99)) +
+                    " max=" + formatMicros(mMaxNanos);
+        }
+
+        private static String formatMicros(long nanos) {
+            return (nanos / 1000) + "us";
+        }
+
+    }
+
+}
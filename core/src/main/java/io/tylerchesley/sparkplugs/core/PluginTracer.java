@@ -0,0 +1,30 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+/**
+ * Receives a named section around every plugin callback dispatched by a
+ * {@link PluginDispatcher}. Section names look like {@code SparkPlug:FragmentPlugin#onCreate}
+ * and are computed once per plugin class.
+ */
+public interface PluginTracer {
+
+    void beginSection(String name);
+
+    void endSection();
+
+}
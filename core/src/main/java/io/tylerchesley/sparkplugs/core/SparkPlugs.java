@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the plugins a host class is created with.
+ *
+ * The {@code sparkplugs-compiler} annotation processor reads this annotation and generates an
+ * installer for the host class that creates each plugin with its public no-argument constructor,
+ * in dependency order. Plugin types that cannot be created that way, or whose {@link DependsOn
+ * dependencies} form a cycle, fail the build, as does a host that is not one of the library's
+ * plugin activities, since only those run installers.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface SparkPlugs {
+
+    Class<?>[] value();
+
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PluginDispatcherTest {
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final List<String> mLog = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private ExecutorService mExecutor;
+    private RecordingDispatcher mDispatcher;
+
+//------------------------------------------
+//  Setup
+//------------------------------------------
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newSingleThreadExecutor();
+        mDispatcher = new RecordingDispatcher();
+        mDispatcher.setTimings(null);
+        mDispatcher.setExecutor(mExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mExecutor.shutdownNow();
+    }
+
+//------------------------------------------
+//  Tests
+//------------------------------------------
+
+    @Test
+    public void pluginCanRemoveItselfDuringResume() {
+        final RecordingPlugin second = new Second(mLog);
+        mDispatcher.add(new SelfRemoving(mLog));
+        mDispatcher.add(second);
+
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        assertEquals(Arrays.asList("SelfRemoving#onResume", "Second#onResume"), mLog);
+
+        mLog.clear();
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        assertEquals(Arrays.asList("Second#onResume"), mLog);
+        assertEquals(Arrays.asList(second), mDispatcher.getPlugins());
+    }
+
+    @Test
+    public void dependenciesRunBeforeDependents() {
+        final RecordingPlugin dependent = new Dependent(mLog);
+        final RecordingPlugin second = new Second(mLog);
+        final RecordingPlugin first = new First(mLog);
+        mDispatcher.add(dependent);
+        mDispatcher.add(second);
+        mDispatcher.add(first);
+
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+
+        assertEquals(Arrays.asList("Second#onCreate", "First#onCreate", "Dependent#onCreate"),
+                mLog);
+        assertEquals(Arrays.asList(dependent, second, first), mDispatcher.getPlugins());
+    }
+
+    @Test
+    public void rejectedCycleKeepsPreviousSnapshot() {
+        final RecordingPlugin cycleA = new CycleA(mLog);
+        mDispatcher.add(cycleA);
+        try {
+            mDispatcher.add(new CycleB(mLog));
+            fail("Expected the cycle to be rejected.");
+        }
+        catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        assertEquals(Arrays.asList(cycleA), mDispatcher.getPlugins());
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        assertEquals(Arrays.asList("CycleA#onResume"), mLog);
+    }
+
+    @Test
+    public void backgroundCreateIsJoinedBeforeResume() {
+        mDispatcher.add(new Blocking(mLog, mRelease));
+        mDispatcher.add(new Second(mLog));
+
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        assertEquals(Arrays.asList("Second#onCreate"), mLog);
+
+        releaseLater();
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        assertEquals(Arrays.asList("Second#onCreate", "Blocking#onCreate", "Blocking#onResume",
+                "Second#onResume"), mLog);
+    }
+
+    @Test
+    public void dependentJoinsBackgroundWorkOfItsDependency() {
+        mDispatcher.add(new Blocking(mLog, mRelease));
+        mDispatcher.add(new BlockingDependent(mLog));
+
+        releaseLater();
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+
+        assertEquals(Arrays.asList("Blocking#onCreate", "BlockingDependent#onCreate"), mLog);
+    }
+
+    @Test
+    public void backgroundExceptionIsRethrownWhenJoined() {
+        final IllegalStateException failure = new IllegalStateException();
+        mDispatcher.add(new Failing(mLog, failure));
+        mDispatcher.add(new Second(mLog));
+
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        try {
+            mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+            fail("Expected the background exception.");
+        }
+        catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(Arrays.asList("Second#onCreate"), mLog);
+
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
+        assertEquals(Arrays.asList("Second#onCreate", "Failing#onPause", "Second#onPause"),
+                mLog);
+    }
+
+    @Test
+    public void attachDeferredReplaysUpToCurrentState() {
+        final Object savedState = new Object();
+        final Deferred deferred = new Deferred(mLog);
+        mDispatcher.addDeferred(deferred);
+        mDispatcher.dispatch(LifecycleEvent.CREATE, savedState);
+        mDispatcher.dispatch(LifecycleEvent.START, null);
+        assertEquals(Collections.<String>emptyList(), mLog);
+
+        mDispatcher.attachDeferred();
+        assertEquals(Arrays.asList("Deferred#onCreate", "Deferred#onStart"), mLog);
+        assertSame(savedState, deferred.mCreateArgument);
+        assertFalse(mDispatcher.hasDeferred());
+
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        assertEquals(Arrays.asList("Deferred#onCreate", "Deferred#onStart", "Deferred#onResume"),
+                mLog);
+    }
+
+    @Test
+    public void attachDeferredReplaysResumeWhenResumed() {
+        mDispatcher.addDeferred(new Deferred(mLog));
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        mDispatcher.dispatch(LifecycleEvent.START, null);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+
+        mDispatcher.attachDeferred();
+        assertEquals(Arrays.asList("Deferred#onCreate", "Deferred#onStart", "Deferred#onResume"),
+                mLog);
+    }
+
+    @Test
+    public void attachDeferredReplaysNothingAfterDestroy() {
+        mDispatcher.addDeferred(new Deferred(mLog));
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        mDispatcher.dispatch(LifecycleEvent.DESTROY, null);
+        mDispatcher.addDeferred(new Deferred(mLog));
+        assertFalse(mDispatcher.hasDeferred());
+
+        mDispatcher.attachDeferred();
+        assertEquals(Collections.<String>emptyList(), mLog);
+        assertEquals(Collections.<RecordingPlugin>emptyList(), mDispatcher.getPlugins());
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Releases blocked background callbacks shortly after the dispatching thread starts
+     * waiting for them.
+     */
+    private void releaseLater() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e) {
+                    // Release anyway.
+                }
+                mRelease.countDown();
+            }
+        }).start();
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    static final class First extends RecordingPlugin {
+
+        First(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    static final class Second extends RecordingPlugin {
+
+        Second(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    @DependsOn(First.class)
+    static final class Dependent extends RecordingPlugin {
+
+        Dependent(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    @DependsOn(CycleB.class)
+    static final class CycleA extends RecordingPlugin {
+
+        CycleA(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    @DependsOn(CycleA.class)
+    static final class CycleB extends RecordingPlugin {
+
+        CycleB(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    static final class SelfRemoving extends RecordingPlugin {
+
+        SelfRemoving(List<String> log) {
+            super(log);
+        }
+
+        @Override
+        void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+            super.onEvent(dispatcher, event, argument);
+            if (event == LifecycleEvent.RESUME) {
+                dispatcher.remove(this);
+            }
+        }
+
+    }
+
+    /**
+     * Receives create in the background and blocks there until released.
+     */
+    static final class Blocking extends RecordingPlugin {
+
+        private final CountDownLatch mRelease;
+
+        Blocking(List<String> log, CountDownLatch release) {
+            super(log);
+            mRelease = release;
+        }
+
+        @Override
+        void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+            if (event == LifecycleEvent.CREATE) {
+                try {
+                    mRelease.await();
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            super.onEvent(dispatcher, event, argument);
+        }
+
+        @Override
+        int backgroundEvents() {
+            return LifecycleEvent.maskOf(LifecycleEvent.CREATE);
+        }
+
+    }
+
+    @DependsOn(Blocking.class)
+    static final class BlockingDependent extends RecordingPlugin {
+
+        BlockingDependent(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    /**
+     * Throws from create in the background.
+     */
+    static final class Failing extends RecordingPlugin {
+
+        private final RuntimeException mFailure;
+
+        Failing(List<String> log, RuntimeException failure) {
+            super(log);
+            mFailure = failure;
+        }
+
+        @Override
+        void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+            if (event == LifecycleEvent.CREATE) {
+                throw mFailure;
+            }
+            super.onEvent(dispatcher, event, argument);
+        }
+
+        @Override
+        int backgroundEvents() {
+            return LifecycleEvent.maskOf(LifecycleEvent.CREATE);
+        }
+
+    }
+
+    static final class Deferred extends RecordingPlugin {
+
+        Object mCreateArgument;
+
+        Deferred(List<String> log) {
+            super(log);
+        }
+
+        @Override
+        void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+            super.onEvent(dispatcher, event, argument);
+            if (event == LifecycleEvent.CREATE) {
+                mCreateArgument = argument;
+            }
+        }
+
+    }
+
+}
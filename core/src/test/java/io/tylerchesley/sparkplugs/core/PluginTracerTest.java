@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PluginTracerTest {
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final List<String> mLog = new ArrayList<String>();
+    private final RecordingTracer mTracer = new RecordingTracer();
+    private RecordingDispatcher mDispatcher;
+
+//------------------------------------------
+//  Setup
+//------------------------------------------
+
+    @Before
+    public void setUp() {
+        mDispatcher = new RecordingDispatcher();
+        mDispatcher.setTracer(mTracer);
+    }
+
+    @After
+    public void tearDown() {
+        PluginDispatcher.setDefaultTracer(null);
+    }
+
+//------------------------------------------
+//  Tests
+//------------------------------------------
+
+    @Test
+    public void sectionsAreNamedAfterPluginClassAndMethod() {
+        mDispatcher.add(new First(mLog));
+        mDispatcher.dispatch(LifecycleEvent.CREATE, null);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+
+        assertEquals(Arrays.asList(
+                "SparkPlug:PluginTracerTest$First#onCreate",
+                "SparkPlug:PluginTracerTest$First#onResume"), mTracer.mNames);
+    }
+
+    @Test
+    public void sectionsArePairedAroundEachCallback() {
+        mDispatcher.add(new First(mLog));
+        mDispatcher.add(new Second(mLog));
+        mDispatcher.dispatch(LifecycleEvent.START, null);
+
+        assertEquals(Arrays.asList(
+                "begin SparkPlug:PluginTracerTest$First#onStart",
+                "First#onStart",
+                "end",
+                "begin SparkPlug:PluginTracerTest$Second#onStart",
+                "Second#onStart",
+                "end"), mTracer.mCalls);
+    }
+
+    @Test
+    public void sectionIsEndedWhenCallbackThrows() {
+        mDispatcher.add(new Throwing(mLog));
+        try {
+            mDispatcher.dispatch(LifecycleEvent.STOP, null);
+            fail("Expected the plugin's exception.");
+        }
+        catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        assertEquals(Arrays.asList(
+                "begin SparkPlug:PluginTracerTest$Throwing#onStop",
+                "end"), mTracer.mCalls);
+    }
+
+    @Test
+    public void sectionNamesAreNotBuiltPerDispatch() {
+        mDispatcher.add(new First(mLog));
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+        mDispatcher.add(new Second(mLog));
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+
+        assertEquals(4, mTracer.mNames.size());
+        assertSame(mTracer.mNames.get(0), mTracer.mNames.get(1));
+        assertSame(mTracer.mNames.get(0), mTracer.mNames.get(2));
+    }
+
+    @Test
+    public void defaultTracerAppliesToNewDispatchers() {
+        PluginDispatcher.setDefaultTracer(mTracer);
+        final RecordingDispatcher dispatcher = new RecordingDispatcher();
+        dispatcher.add(new First(mLog));
+        dispatcher.dispatch(LifecycleEvent.PAUSE, null);
+
+        assertEquals(Arrays.asList("SparkPlug:PluginTracerTest$First#onPause"),
+                mTracer.mNames);
+    }
+
+    @Test
+    public void nothingIsTracedWithoutTracer() {
+        mDispatcher.setTracer(null);
+        mDispatcher.add(new First(mLog));
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+
+        assertEquals(Arrays.asList("First#onResume"), mLog);
+        assertTrue(mTracer.mNames.isEmpty());
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private final class RecordingTracer implements PluginTracer {
+
+        final List<String> mNames = new ArrayList<String>();
+        final List<String> mCalls = mLog;
+
+        @Override
+        public void beginSection(String name) {
+            mNames.add(name);
+            mCalls.add("begin " + name);
+        }
+
+        @Override
+        public void endSection() {
+            mCalls.add("end");
+        }
+
+    }
+
+    static final class First extends RecordingPlugin {
+
+        First(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    static final class Second extends RecordingPlugin {
+
+        Second(List<String> log) {
+            super(log);
+        }
+
+    }
+
+    static final class Throwing extends RecordingPlugin {
+
+        Throwing(List<String> log) {
+            super(log);
+        }
+
+        @Override
+        void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+            throw new IllegalStateException();
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+/**
+ * Dispatcher for tests that hands every event to {@link RecordingPlugin#onEvent}.
+ */
+class RecordingDispatcher extends PluginDispatcher<RecordingPlugin, Object> {
+
+    RecordingDispatcher() {
+        super(new Object());
+    }
+
+    @Override
+    protected void invoke(RecordingPlugin plugin, int event, Object argument) {
+        plugin.onEvent(this, event, argument);
+    }
+
+    @Override
+    protected int backgroundEvents(RecordingPlugin plugin) {
+        return plugin.backgroundEvents();
+    }
+
+}
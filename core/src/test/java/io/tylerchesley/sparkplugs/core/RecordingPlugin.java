@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.sparkplugs.core;
+
+import java.util.List;
+
+/**
+ * Plugin for dispatcher tests that logs every event it receives as
+ * {@code SimpleClassName#onEvent}.
+ */
+class RecordingPlugin {
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final List<String> mLog;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    RecordingPlugin(List<String> log) {
+        mLog = log;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    void onEvent(RecordingDispatcher dispatcher, int event, Object argument) {
+        mLog.add(getClass().getSimpleName() + "#" + LifecycleEvent.name(event));
+    }
+
+    /**
+     * Returns the events to receive off the dispatching thread; none by default.
+     */
+    int backgroundEvents() {
+        return 0;
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+/**
+ * Implemented by plugins whose work in some callbacks is thread-safe and may run off the main
+ * thread, such as opening a database or warming a disk cache in {@code onCreate}.
+ *
+ * Those callbacks run on a shared bounded executor in parallel with the main-thread plugins.
+ * They are always finished before the activity's {@code onResume}, {@code onPause},
+ * {@code onStop} and {@code onDestroy} are dispatched, and before the plugin itself receives its
+ * next callback.
+ */
+public interface BackgroundSparkPlug extends SparkPlug {
+
+    /**
+     * Returns a mask of the events that may run in the background, built with
+     * {@link io.tylerchesley.sparkplugs.core.LifecycleEvent#maskOf(int)}, for example
+     * {@code LifecycleEvent.maskOf(LifecycleEvent.CREATE)}. Called once when the plugin is added.
+     */
+    int getBackgroundEvents();
+
+}
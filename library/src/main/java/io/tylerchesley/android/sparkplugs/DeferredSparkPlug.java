@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+/**
+ * Marker interface for plugins that do not need to run before the activity's first frame, such
+ * as analytics, logging or prefetching.
+ *
+ * A deferred plugin receives no callbacks until the main thread goes idle after the activity's
+ * first {@code onResume}. It is then sent {@code onCreate}, {@code onStart} and
+ * {@code onResume}, in that order, as far as the activity has progressed; afterwards it behaves
+ * like any other plugin. If the activity is finishing or destroyed before then, the plugin
+ * receives nothing at all.
+ */
+public interface DeferredSparkPlug extends SparkPlug {
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.app.Activity;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+
+/**
+ * Headless retained fragment that carries {@link RetainedSparkPlug} instances across
+ * configuration changes for {@link FragmentActivity} hosts, leaving
+ * {@link FragmentActivity#onRetainCustomNonConfigurationInstance()} to the application.
+ */
+public final class RetainedPluginsFragment extends Fragment {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final String TAG = "io.tylerchesley.android.sparkplugs.RetainedPlugins";
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Hands the plugins retained by the previous instance of the activity, if any, to the
+     * helper, and retains the helper's plugins if the activity is recreated. Call from
+     * {@code onCreate} before adding plugins.
+     */
+    static void attach(FragmentActivity activity, SparkPlugActivityHelper helper) {
+        final FragmentManager manager = activity.getSupportFragmentManager();
+        RetainedPluginsFragment fragment =
+                (RetainedPluginsFragment) manager.findFragmentByTag(TAG);
+        if (fragment == null) {
+            fragment = new RetainedPluginsFragment();
+            manager.beginTransaction().add(fragment, TAG).commit();
+        }
+        else {
+            helper.onRestoreNonConfigurationInstance(fragment.mInstance);
+            fragment.mInstance = null;
+        }
+        fragment.mHelper = helper;
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private SparkPlugActivityHelper mHelper;
+    private Object mInstance;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public RetainedPluginsFragment() {
+        setRetainInstance(true);
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onDetach() {
+        final Activity activity = getActivity();
+        if (mHelper != null && activity != null && activity.getChangingConfigurations() != 0) {
+            mInstance = mHelper.onRetainNonConfigurationInstance(null);
+        }
+        mHelper = null;
+
+        super.onDetach();
+    }
+
+}
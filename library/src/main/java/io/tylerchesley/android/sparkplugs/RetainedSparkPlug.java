@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+/**
+ * Marker interface for plugins that survive configuration changes, such as plugins holding
+ * loaded data, parsed configuration or an object graph.
+ *
+ * When the activity is recreated for a configuration change, a retained plugin is not sent
+ * {@code onDestroy} for the old instance. Instead the same plugin object takes the place of the
+ * first plugin of its class added to the new instance, and receives the new instance's
+ * callbacks from {@code onCreate} on. It should keep its expensive state in fields and skip
+ * rebuilding it, and must not hold on to the old activity.
+ */
+public interface RetainedSparkPlug extends SparkPlug {
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.os.Bundle;
+import android.os.Parcel;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how many bytes each plugin class adds to the activity's saved state, measured by
+ * parceling the bundle before and after the plugin's {@code onSaveInstanceState}.
+ *
+ * Measuring parcels the whole bundle twice per plugin, so it is opt-in and meant for debug
+ * builds: call {@link #enable()} early, typically from {@code Application.onCreate()}. Results
+ * are printed by {@link SparkPlugActivityHelper#dump(String, PrintWriter)}.
+ */
+public final class SavedStateSizes {
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static volatile SavedStateSizes sInstance;
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    public static synchronized SavedStateSizes enable() {
+        if (sInstance == null) {
+            sInstance = new SavedStateSizes();
+        }
+        return sInstance;
+    }
+
+    public static synchronized void disable() {
+        sInstance = null;
+    }
+
+    /**
+     * Returns the shared instance, or null if measuring has not been enabled.
+     */
+    public static SavedStateSizes getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the size of the bundle when parceled, in bytes.
+     */
+    public static int sizeOf(Bundle bundle) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.dataSize();
+        }
+        finally {
+            parcel.recycle();
+        }
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Map<Class<?>, int[]> mSizes = new HashMap<Class<?>, int[]>();
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private SavedStateSizes() {
+
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Records the bytes a plugin class added in one save.
+     */
+    public synchronized void record(Class<?> pluginClass, int bytes) {
+        int[] sizes = mSizes.get(pluginClass);
+        if (sizes == null) {
+            sizes = new int[2];
+            mSizes.put(pluginClass, sizes);
+        }
+        sizes[0] = bytes;
+        sizes[1] = Math.max(sizes[1], bytes);
+    }
+
+    public synchronized void reset() {
+        mSizes.clear();
+    }
+
+    /**
+     * Prints the last and largest saved state size of every plugin class, largest first.
+     */
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        final List<Map.Entry<Class<?>, int[]>> entries =
+                new ArrayList<Map.Entry<Class<?>, int[]>>(mSizes.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Class<?>, int[]>>() {
+            @Override
+            public int compare(Map.Entry<Class<?>, int[]> lhs, Map.Entry<Class<?>, int[]> rhs) {
+                final int left = lhs.getValue()[1];
+                final int right = rhs.getValue()[1];
+                return left > right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+
+        writer.print(prefix);
+        writer.println("SparkPlug saved state sizes:");
+        for (Map.Entry<Class<?>, int[]> entry : entries) {
+            writer.print(prefix);
+            writer.print("  ");
+            writer.print(entry.getKey().getName());
+            writer.print(" last=");
+            writer.print(entry.getValue()[0]);
+            writer.print("B max=");
+            writer.print(entry.getValue()[1]);
+            writer.println("B");
+        }
+    }
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.tylerchesley.sparkplugs.core.PluginExecutors;
+
+/**
+ * Keeps large plugin state out of the saved instance state bundle. Only a short token goes into
+ * the bundle; the state itself stays in memory or in a file in the cache directory.
+ *
+ * State kept {@link #putInMemory in memory} survives configuration changes and activity
+ * recreation but not process death. State kept {@link #putInFile in a file} is also held in
+ * memory, and is serialized when it is put and written to disk on a background thread, so that
+ * it survives process death too. {@link #get} returns null when the state is gone, and plugins
+ * must be prepared to rebuild it.
+ *
+ * Each state belongs to the activity that put it, and after recreation to the activity that
+ * {@link #get got} it, so plugins should get their state back in {@code onCreate}. It is dropped
+ * when the same activity puts a new state under the same key, or when the activity finishes.
+ * The state of an activity destroyed without finishing is also dropped once a later instance of
+ * the same class first puts or gets a state under the same key without taking it over.
+ *
+ * A state that was lost from memory, after process death, is read from its file and
+ * deserialized by {@link #get} on the calling thread, usually the main thread in
+ * {@code onCreate}. Keep states put in files small.
+ */
+public final class SavedStateStore {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final String TAG = "SavedStateStore";
+
+    private static final String DIRECTORY = "sparkplugs-state";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long MAX_FILE_AGE_MILLIS = 24 * 60 * 60 * 1000;
+
+    private static final String MEMORY_PREFIX = "m:";
+    private static final String FILE_PREFIX = "f:";
+
+    /**
+     * Keeps tokens from different processes apart, since files outlive the process.
+     */
+    private static final String TOKEN_PREFIX = Long.toHexString(System.currentTimeMillis()) + "-";
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final AtomicLong sNextToken = new AtomicLong();
+
+    /**
+     * The states by token, the tokens each activity owns by key, the tokens of activities
+     * destroyed without finishing by activity class and key, and the file tokens that have not
+     * been dropped. All guarded by {@code sMemory}.
+     */
+    private static final Map<String, Object> sMemory = new HashMap<String, Object>();
+    private static final Map<Activity, Map<String, String>> sOwners =
+            new WeakHashMap<Activity, Map<String, String>>();
+    private static final Map<String, Set<String>> sOrphans = new HashMap<String, Set<String>>();
+    private static final Set<String> sFileTokens = new HashSet<String>();
+
+    private static boolean sCleanedUp;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private SavedStateStore() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Keeps the state in memory and puts its token into the bundle under the key.
+     */
+    public static void putInMemory(Activity activity, Bundle outState, String key, Object state) {
+        final String token = MEMORY_PREFIX + TOKEN_PREFIX + sNextToken.incrementAndGet();
+        synchronized (sMemory) {
+            sMemory.put(token, state);
+            drop(activity, own(activity, key, token));
+        }
+        outState.putString(key, token);
+    }
+
+    /**
+     * Keeps the state in memory, serializes it, writes it to a file in the background, and puts
+     * its token into the bundle under the key. The state is serialized before this returns, so
+     * the caller may keep changing it. If it cannot be serialized it is only kept in memory.
+     */
+    public static void putInFile(Activity activity, Bundle outState, String key,
+                                 Serializable state) {
+        final String token = FILE_PREFIX + TOKEN_PREFIX + sNextToken.incrementAndGet();
+        final byte[] bytes = serialize(state);
+        synchronized (sMemory) {
+            sMemory.put(token, state);
+            if (bytes != null) {
+                sFileTokens.add(token);
+            }
+            drop(activity, own(activity, key, token));
+        }
+        outState.putString(key, token);
+
+        if (bytes != null) {
+            final File file = fileOf(activity, token);
+            PluginExecutors.shared().execute(new Runnable() {
+                @Override
+                public void run() {
+                    cleanUp(file.getParentFile());
+                    write(file, token, bytes);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the state stored under the key of the saved bundle, or null if there is none or it
+     * was lost. The activity takes over the state from the activity that put it.
+     */
+    public static Object get(Activity activity, Bundle savedState, String key) {
+        final String token = savedState == null ? null : savedState.getString(key);
+        if (token == null) {
+            return null;
+        }
+
+        synchronized (sMemory) {
+            final Object state = sMemory.get(token);
+            if (state != null || !token.startsWith(FILE_PREFIX)) {
+                if (state != null) {
+                    drop(activity, own(activity, key, token));
+                }
+                return state;
+            }
+        }
+
+        final Object state = read(fileOf(activity, token));
+        if (state != null) {
+            synchronized (sMemory) {
+                sMemory.put(token, state);
+                sFileTokens.add(token);
+                drop(activity, own(activity, key, token));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Drops all states owned by the activity. Called when the activity is destroyed while
+     * finishing.
+     */
+    static void release(Activity activity) {
+        synchronized (sMemory) {
+            final Map<String, String> tokens = sOwners.remove(activity);
+            if (tokens != null) {
+                for (String token : tokens.values()) {
+                    drop(activity, token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the states owned by the activity over to the next instance of its class. Called when
+     * the activity is destroyed without finishing.
+     */
+    static void detach(Activity activity) {
+        synchronized (sMemory) {
+            final Map<String, String> tokens = sOwners.remove(activity);
+            if (tokens == null) {
+                return;
+            }
+
+            for (Map.Entry<String, String> entry : tokens.entrySet()) {
+                final String orphanKey = orphanKey(activity, entry.getKey());
+                Set<String> orphans = sOrphans.get(orphanKey);
+                if (orphans == null) {
+                    orphans = new HashSet<String>();
+                    sOrphans.put(orphanKey, orphans);
+                }
+                orphans.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Records that the activity owns the token under the key, and returns the token it replaces.
+     * The first time the activity uses the key, the states its destroyed predecessors left under
+     * the key are dropped, except the one it takes over.
+     */
+    private static String own(Activity activity, String key, String token) {
+        Map<String, String> tokens = sOwners.get(activity);
+        if (tokens == null) {
+            tokens = new HashMap<String, String>();
+            sOwners.put(activity, tokens);
+        }
+
+        final String previous = tokens.put(key, token);
+        if (previous == null) {
+            final Set<String> orphans = sOrphans.remove(orphanKey(activity, key));
+            if (orphans != null) {
+                for (String orphan : orphans) {
+                    if (!orphan.equals(token)) {
+                        drop(activity, orphan);
+                    }
+                }
+            }
+        }
+        return token.equals(previous) ? null : previous;
+    }
+
+    private static String orphanKey(Activity activity, String key) {
+        return activity.getClass().getName() + "#" + key;
+    }
+
+    private static void drop(Activity activity, String token) {
+        if (token == null) {
+            return;
+        }
+
+        sMemory.remove(token);
+        if (sFileTokens.remove(token)) {
+            final File file = fileOf(activity, token);
+            PluginExecutors.shared().execute(new Runnable() {
+                @Override
+                public void run() {
+                    file.delete();
+                }
+            });
+        }
+    }
+
+    private static File fileOf(Activity activity, String token) {
+        return new File(new File(activity.getCacheDir(), DIRECTORY),
+                token.substring(FILE_PREFIX.length()));
+    }
+
+    private static byte[] serialize(Serializable state) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(bytes);
+            out.writeObject(state);
+            out.flush();
+            return bytes.toByteArray();
+        }
+        catch (IOException e) {
+            Log.w(TAG, "Unable to serialize " + state.getClass().getName(), e);
+            return null;
+        }
+        finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Writes the bytes to a temporary file and renames it into place, unless the token has been
+     * dropped in the meantime.
+     */
+    private static void write(File file, String token, byte[] bytes) {
+        final File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Unable to create " + directory);
+            return;
+        }
+
+        final File temp = new File(directory, file.getName() + TEMP_SUFFIX);
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        catch (IOException e) {
+            Log.w(TAG, "Unable to write " + file, e);
+            temp.delete();
+            return;
+        }
+        finally {
+            close(out);
+        }
+
+        synchronized (sMemory) {
+            if (!sFileTokens.contains(token) || !temp.renameTo(file)) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static Object read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            return in.readObject();
+        }
+        catch (IOException e) {
+            Log.w(TAG, "Unable to read " + file, e);
+            return null;
+        }
+        catch (ClassNotFoundException e) {
+            Log.w(TAG, "Unable to read " + file, e);
+            return null;
+        }
+        finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Deletes state files left by earlier processes that are older than a day, once per process.
+     */
+    private static synchronized void cleanUp(File directory) {
+        if (sCleanedUp) {
+            return;
+        }
+        sCleanedUp = true;
+
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        final long oldest = System.currentTimeMillis() - MAX_FILE_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < oldest) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (IOException e) {
+                // Ignored.
+            }
+        }
+    }
+
+}
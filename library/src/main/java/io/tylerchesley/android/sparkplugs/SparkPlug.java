@@ -38,4 +38,16 @@ public interface SparkPlug {
 
     void onDestroy(Activity activity);
 
+    /**
+     * @param level one of the {@code TRIM_MEMORY_} levels of
+     * {@link android.content.ComponentCallbacks2}. Only sent on API 14 and above.
+     */
+    void onTrimMemory(Activity activity, int level);
+
+    void onLowMemory(Activity activity);
+
+    void onSaveInstanceState(Activity activity, Bundle outState);
+
+    void onRestoreInstanceState(Activity activity, Bundle savedInstanceState);
+
 }
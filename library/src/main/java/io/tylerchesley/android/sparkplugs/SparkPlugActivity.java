@@ -19,6 +19,9 @@ package io.tylerchesley.android.sparkplugs;
 import android.app.Activity;
 import android.os.Bundle;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
 /**
  * Implementation of the {@link SparkPluginableActivity} interface for the base
  * {@link android.app.Activity} class.
@@ -36,10 +39,13 @@ public class SparkPlugActivity extends Activity implements SparkPluginableActivi
 //------------------------------------------
 
     @Override
+    @SuppressWarnings("deprecation")
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         mPluginHelper = new SparkPlugActivityHelper(this);
+        mPluginHelper.onRestoreNonConfigurationInstance(getLastNonConfigurationInstance());
+        SparkPlugInstallers.install(this, mPluginHelper);
         initializePlugins();
         mPluginHelper.onCreate(savedInstanceState);
     }
@@ -86,6 +92,56 @@ public class SparkPlugActivity extends Activity implements SparkPluginableActivi
         mPluginHelper.onDestroy();
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        mPluginHelper.onSaveInstanceState(outState);
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+
+        mPluginHelper.onRestoreInstanceState(savedInstanceState);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        mPluginHelper.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+
+        mPluginHelper.onLowMemory();
+    }
+
+    /**
+     * Retains the activity's {@link RetainedSparkPlug} instances. Subclasses should retain their
+     * own object with {@link #onRetainCustomNonConfigurationInstance()}; a subclass that
+     * overrides this method must return the result of the super call, or retained plugins and
+     * the custom instance are lost.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public Object onRetainNonConfigurationInstance() {
+        return mPluginHelper.onRetainNonConfigurationInstance(
+                onRetainCustomNonConfigurationInstance());
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+
+        if (mPluginHelper != null) {
+            mPluginHelper.dump(prefix, writer);
+        }
+    }
+
 //------------------------------------------
 //  Methods
 //------------------------------------------
@@ -100,8 +156,30 @@ public class SparkPlugActivity extends Activity implements SparkPluginableActivi
         mPluginHelper.addActivityPlugin(plugin);
     }
 
+    @Override
+    public <T extends SparkPlug> T getActivityPlugin(Class<T> type) {
+        return mPluginHelper.getActivityPlugin(type);
+    }
+
+    /**
+     * Use this instead of {@link #onRetainNonConfigurationInstance()}.
+     */
+    public Object onRetainCustomNonConfigurationInstance() {
+        return null;
+    }
+
+    /**
+     * Returns the object retained by {@link #onRetainCustomNonConfigurationInstance()}.
+     */
+    @SuppressWarnings("deprecation")
+    public Object getLastCustomNonConfigurationInstance() {
+        return SparkPlugActivityHelper.getCustomNonConfigurationInstance(
+                getLastNonConfigurationInstance());
+    }
+
     /**
-     * Subclasses can override this method to initialize their plugins.
+     * Subclasses can override this method to initialize their plugins. Plugins declared with
+     * {@link io.tylerchesley.sparkplugs.core.SparkPlugs} have already been added.
      */
     protected void initializePlugins() {
 
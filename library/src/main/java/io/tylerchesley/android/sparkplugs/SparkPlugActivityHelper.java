@@ -18,16 +18,33 @@ package io.tylerchesley.android.sparkplugs;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.tylerchesley.sparkplugs.core.LifecycleEvent;
+import io.tylerchesley.sparkplugs.core.PluginClasses;
+import io.tylerchesley.sparkplugs.core.PluginDispatcher;
+import io.tylerchesley.sparkplugs.core.PluginTimings;
+import io.tylerchesley.sparkplugs.core.PluginTracer;
 
 /**
  * Helper class that implements the {@link SparkPluginableActivity} interface that contains all
  * the logic for calling plugin lifecycle methods.
  *
  * Different {@link android.app.Activity} classes can utilize the helper class without
- * duplicating the logic.
+ * duplicating the logic. Dispatch itself is done by a {@link PluginDispatcher}; see it for the
+ * rules on adding and removing plugins from inside a callback.
+ *
+ * Plugins that extend {@link SparkPlugBase} only receive the callbacks they override. Plugins that
+ * implement {@link DeferredSparkPlug} are held back until the main thread is idle after the first
+ * {@link #onResume()}. Callbacks that a {@link BackgroundSparkPlug} declares thread-safe run on a
+ * background executor. Plugins that implement {@link RetainedSparkPlug} are carried over to
+ * the next activity instance when the activity is recreated for a configuration change.
  */
 public class SparkPlugActivityHelper implements SparkPluginableActivity {
 
@@ -35,16 +52,32 @@ public class SparkPlugActivityHelper implements SparkPluginableActivity {
 //  Variables
 //------------------------------------------
 
-    private List<SparkPlug> mPlugins = new ArrayList<SparkPlug>();
+    private final ActivityPluginDispatcher mDispatcher;
+
+    private boolean mResumedOnce;
+    private boolean mAttachScheduled;
 
-    private final Activity mActivity;
+    private List<SparkPlug> mRetainedPlugins;
+    private boolean mRetaining;
+
+    private final MessageQueue.IdleHandler mAttachDeferredHandler =
+            new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    mAttachScheduled = false;
+                    if (!mDispatcher.getHost().isFinishing()) {
+                        mDispatcher.attachDeferred();
+                    }
+                    return false;
+                }
+            };
 
 //------------------------------------------
 //  Constructor
 //------------------------------------------
 
     public SparkPlugActivityHelper(Activity activity) {
-        mActivity = activity;
+        mDispatcher = new ActivityPluginDispatcher(activity);
     }
 
 //------------------------------------------
@@ -52,55 +85,335 @@ public class SparkPlugActivityHelper implements SparkPluginableActivity {
 //------------------------------------------
 
     public void onCreate(Bundle savedInstanceState) {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onCreate(mActivity, savedInstanceState);
+        if (mRetainedPlugins != null) {
+            for (SparkPlug plugin : mRetainedPlugins) {
+                mDispatcher.add(plugin);
+            }
+            mRetainedPlugins = null;
         }
+
+        mDispatcher.dispatch(LifecycleEvent.CREATE, savedInstanceState);
     }
 
     public void onRestart() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onRestart(mActivity);
-        }
+        mDispatcher.dispatch(LifecycleEvent.RESTART, null);
     }
 
     public void onStart() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onStart(mActivity);
-        }
+        mDispatcher.dispatch(LifecycleEvent.START, null);
     }
 
     public void onResume() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onResume(mActivity);
-        }
+        mDispatcher.dispatch(LifecycleEvent.RESUME, null);
+
+        mResumedOnce = true;
+        scheduleAttachDeferred();
     }
 
     public void onPause() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onPause(mActivity);
-        }
+        mDispatcher.dispatch(LifecycleEvent.PAUSE, null);
     }
 
     public void onStop() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onStop(mActivity);
-        }
+        mDispatcher.dispatch(LifecycleEvent.STOP, null);
     }
 
     public void onDestroy() {
-        for (SparkPlug plugin : mPlugins) {
-            plugin.onDestroy(mActivity);
+        if (mAttachScheduled) {
+            Looper.myQueue().removeIdleHandler(mAttachDeferredHandler);
+            mAttachScheduled = false;
+        }
+
+        if (mRetaining) {
+            for (SparkPlug plugin : mDispatcher.getPlugins()) {
+                if (plugin instanceof RetainedSparkPlug) {
+                    mDispatcher.remove(plugin);
+                }
+            }
+        }
+
+        mDispatcher.dispatch(LifecycleEvent.DESTROY, null);
+
+        final Activity activity = mDispatcher.getHost();
+        if (activity.isFinishing()) {
+            SavedStateStore.release(activity);
+        }
+        else {
+            SavedStateStore.detach(activity);
+        }
+    }
+
+    public void onSaveInstanceState(Bundle outState) {
+        mDispatcher.dispatch(LifecycleEvent.SAVE_INSTANCE_STATE, outState);
+    }
+
+    public void onRestoreInstanceState(Bundle savedInstanceState) {
+        mDispatcher.dispatch(LifecycleEvent.RESTORE_INSTANCE_STATE, savedInstanceState);
+    }
+
+    public void onTrimMemory(int level) {
+        mDispatcher.dispatch(LifecycleEvent.TRIM_MEMORY, level);
+    }
+
+    public void onLowMemory() {
+        mDispatcher.dispatch(LifecycleEvent.LOW_MEMORY, null);
+    }
+
+    /**
+     * Returns the object to retain across a configuration change, holding the activity's
+     * {@link RetainedSparkPlug} instances and the given custom object, or null if there is
+     * nothing to retain. The retained plugins will not be sent {@link #onDestroy()}.
+     *
+     * Pass the result to {@link #onRestoreNonConfigurationInstance(Object)} on the helper of the
+     * next activity instance.
+     */
+    public Object onRetainNonConfigurationInstance(Object custom) {
+        final List<SparkPlug> plugins = new ArrayList<SparkPlug>();
+        for (SparkPlug plugin : mDispatcher.getPlugins()) {
+            if (plugin instanceof RetainedSparkPlug) {
+                plugins.add(plugin);
+            }
+        }
+
+        if (plugins.isEmpty() && custom == null) {
+            return null;
+        }
+
+        mRetaining = !plugins.isEmpty();
+        return new NonConfigurationInstance(plugins, custom);
+    }
+
+    /**
+     * Takes over the plugins retained by the previous activity instance. Must be called before
+     * plugins are added and before {@link #onCreate(Bundle)}.
+     */
+    public void onRestoreNonConfigurationInstance(Object instance) {
+        if (instance instanceof NonConfigurationInstance) {
+            final List<SparkPlug> plugins = ((NonConfigurationInstance) instance).mPlugins;
+            mRetainedPlugins = plugins.isEmpty() ? null : new ArrayList<SparkPlug>(plugins);
+        }
+    }
+
+    /**
+     * Returns the custom object passed to {@link #onRetainNonConfigurationInstance(Object)}.
+     */
+    public static Object getCustomNonConfigurationInstance(Object instance) {
+        return instance instanceof NonConfigurationInstance ?
+                ((NonConfigurationInstance) instance).mCustom : instance;
+    }
+
+    /**
+     * Records the duration of every plugin callback into the given timings, or stops recording
+     * if it is null. Defaults to {@link PluginTimings#getInstance()}.
+     */
+    public void setTimings(PluginTimings timings) {
+        mDispatcher.setTimings(timings);
+    }
+
+    public PluginTimings getTimings() {
+        return mDispatcher.getTimings();
+    }
+
+    /**
+     * Wraps every plugin callback in a section of the given tracer, for example a
+     * {@link SystraceTracer}, or stops tracing if it is null.
+     */
+    public void setTracer(PluginTracer tracer) {
+        mDispatcher.setTracer(tracer);
+    }
+
+    public PluginTracer getTracer() {
+        return mDispatcher.getTracer();
+    }
+
+    /**
+     * Sets the executor that runs {@link BackgroundSparkPlug} callbacks. Defaults to
+     * {@link io.tylerchesley.sparkplugs.core.PluginExecutors#shared()}.
+     */
+    public void setExecutor(Executor executor) {
+        mDispatcher.setExecutor(executor);
+    }
+
+    /**
+     * Prints the plugin timings and saved state sizes, if enabled. Intended to be called from
+     * {@link Activity#dump(String, java.io.FileDescriptor, java.io.PrintWriter, String[])}.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        final PluginTimings timings = mDispatcher.getTimings();
+        if (timings != null) {
+            timings.dump(prefix, writer);
+        }
+
+        final SavedStateSizes sizes = SavedStateSizes.getInstance();
+        if (sizes != null) {
+            sizes.dump(prefix, writer);
         }
     }
 
     @Override
     public void addActivityPlugin(SparkPlug plugin) {
-        mPlugins.add(plugin);
+        if (mRetainedPlugins != null && plugin instanceof RetainedSparkPlug) {
+            plugin = takeRetainedPlugin(plugin);
+        }
+
+        if (plugin instanceof DeferredSparkPlug) {
+            mDispatcher.addDeferred(plugin);
+            if (mResumedOnce) {
+                scheduleAttachDeferred();
+            }
+        }
+        else {
+            mDispatcher.add(plugin);
+        }
     }
 
     @Override
     public void removeActivityPlugin(SparkPlug plugin) {
-        mPlugins.remove(plugin);
+        mDispatcher.remove(plugin);
+    }
+
+    @Override
+    public <T extends SparkPlug> T getActivityPlugin(Class<T> type) {
+        return mDispatcher.getPlugin(type);
+    }
+
+    /**
+     * Returns the retained plugin of the same class, if there is one, in place of the new one.
+     */
+    private SparkPlug takeRetainedPlugin(SparkPlug plugin) {
+        final Class<?> pluginClass = plugin.getClass();
+        for (int i = 0; i < mRetainedPlugins.size(); i++) {
+            if (mRetainedPlugins.get(i).getClass() == pluginClass) {
+                final SparkPlug retained = mRetainedPlugins.remove(i);
+                if (mRetainedPlugins.isEmpty()) {
+                    mRetainedPlugins = null;
+                }
+                return retained;
+            }
+        }
+        return plugin;
+    }
+
+    private void scheduleAttachDeferred() {
+        if (!mAttachScheduled && mDispatcher.hasDeferred()) {
+            Looper.myQueue().addIdleHandler(mAttachDeferredHandler);
+            mAttachScheduled = true;
+        }
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class NonConfigurationInstance {
+
+        final List<SparkPlug> mPlugins;
+        final Object mCustom;
+
+        NonConfigurationInstance(List<SparkPlug> plugins, Object custom) {
+            mPlugins = plugins;
+            mCustom = custom;
+        }
+
+    }
+
+    /**
+     * Adapts the generic dispatcher to {@link SparkPlug} and {@link Activity}.
+     */
+    static final class ActivityPluginDispatcher extends PluginDispatcher<SparkPlug, Activity> {
+
+        private static final Class<?>[][] METHOD_PARAMETERS = {
+                {Activity.class, Bundle.class},
+                {Activity.class},
+                {Activity.class},
+                {Activity.class},
+                {Activity.class},
+                {Activity.class},
+                {Activity.class},
+                {Activity.class, int.class},
+                {Activity.class},
+                {Activity.class, Bundle.class},
+                {Activity.class, Bundle.class}
+        };
+
+        /**
+         * Events that touch the activity's bundle and so always run on the main thread.
+         */
+        private static final int MAIN_THREAD_EVENTS =
+                LifecycleEvent.maskOf(LifecycleEvent.SAVE_INSTANCE_STATE) |
+                LifecycleEvent.maskOf(LifecycleEvent.RESTORE_INSTANCE_STATE);
+
+        ActivityPluginDispatcher(Activity activity) {
+            super(activity);
+        }
+
+        @Override
+        protected int eventMask(Class<?> pluginClass) {
+            return PluginClasses.overriddenEvents(pluginClass, SparkPlugBase.class,
+                    METHOD_PARAMETERS);
+        }
+
+        @Override
+        protected int backgroundEvents(SparkPlug plugin) {
+            return plugin instanceof BackgroundSparkPlug ?
+                    ((BackgroundSparkPlug) plugin).getBackgroundEvents() & ~MAIN_THREAD_EVENTS : 0;
+        }
+
+        @Override
+        protected void invoke(SparkPlug plugin, int event, Object argument) {
+            final Activity activity = getHost();
+            switch (event) {
+                case LifecycleEvent.CREATE:
+                    plugin.onCreate(activity, (Bundle) argument);
+                    break;
+                case LifecycleEvent.START:
+                    plugin.onStart(activity);
+                    break;
+                case LifecycleEvent.RESTART:
+                    plugin.onRestart(activity);
+                    break;
+                case LifecycleEvent.RESUME:
+                    plugin.onResume(activity);
+                    break;
+                case LifecycleEvent.PAUSE:
+                    plugin.onPause(activity);
+                    break;
+                case LifecycleEvent.STOP:
+                    plugin.onStop(activity);
+                    break;
+                case LifecycleEvent.DESTROY:
+                    plugin.onDestroy(activity);
+                    break;
+                case LifecycleEvent.TRIM_MEMORY:
+                    plugin.onTrimMemory(activity, (Integer) argument);
+                    break;
+                case LifecycleEvent.LOW_MEMORY:
+                    plugin.onLowMemory(activity);
+                    break;
+                case LifecycleEvent.SAVE_INSTANCE_STATE:
+                    saveInstanceState(plugin, activity, (Bundle) argument);
+                    break;
+                case LifecycleEvent.RESTORE_INSTANCE_STATE:
+                    plugin.onRestoreInstanceState(activity, (Bundle) argument);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown event " + event);
+            }
+        }
+
+        private static void saveInstanceState(SparkPlug plugin, Activity activity,
+                                              Bundle outState) {
+            final SavedStateSizes sizes = SavedStateSizes.getInstance();
+            if (sizes == null) {
+                plugin.onSaveInstanceState(activity, outState);
+                return;
+            }
+
+            final int before = SavedStateSizes.sizeOf(outState);
+            plugin.onSaveInstanceState(activity, outState);
+            sizes.record(plugin.getClass(), SavedStateSizes.sizeOf(outState) - before);
+        }
+
     }
 
 }
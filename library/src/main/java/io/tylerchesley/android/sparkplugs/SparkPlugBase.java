@@ -65,4 +65,24 @@ public class SparkPlugBase implements SparkPlug {
 
     }
 
+    @Override
+    public void onTrimMemory(Activity activity, int level) {
+
+    }
+
+    @Override
+    public void onLowMemory(Activity activity) {
+
+    }
+
+    @Override
+    public void onSaveInstanceState(Activity activity, Bundle outState) {
+
+    }
+
+    @Override
+    public void onRestoreInstanceState(Activity activity, Bundle savedInstanceState) {
+
+    }
+
 }
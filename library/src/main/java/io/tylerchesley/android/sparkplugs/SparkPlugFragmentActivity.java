@@ -19,6 +19,9 @@ package io.tylerchesley.android.sparkplugs;
 import android.os.Bundle;
 import android.support.v4.app.FragmentActivity;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
 /**
  * Implementation of the {@link SparkPluginableActivity} interface for the
  * {@link android.support.v4.app.FragmentActivity} class.
@@ -40,6 +43,8 @@ public class SparkPlugFragmentActivity extends FragmentActivity implements Spark
         super.onCreate(savedInstanceState);
 
         mPluginHelper = new SparkPlugActivityHelper(this);
+        RetainedPluginsFragment.attach(this, mPluginHelper);
+        SparkPlugInstallers.install(this, mPluginHelper);
         initializePlugins();
         mPluginHelper.onCreate(savedInstanceState);
     }
@@ -86,6 +91,43 @@ public class SparkPlugFragmentActivity extends FragmentActivity implements Spark
         mPluginHelper.onDestroy();
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        mPluginHelper.onSaveInstanceState(outState);
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+
+        mPluginHelper.onRestoreInstanceState(savedInstanceState);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        mPluginHelper.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+
+        mPluginHelper.onLowMemory();
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+
+        if (mPluginHelper != null) {
+            mPluginHelper.dump(prefix, writer);
+        }
+    }
+
 //------------------------------------------
 //  Methods
 //------------------------------------------
@@ -100,8 +142,14 @@ public class SparkPlugFragmentActivity extends FragmentActivity implements Spark
         mPluginHelper.addActivityPlugin(plugin);
     }
 
+    @Override
+    public <T extends SparkPlug> T getActivityPlugin(Class<T> type) {
+        return mPluginHelper.getActivityPlugin(type);
+    }
+
     /**
-     * Subclasses can override this method to initialize their plugins.
+     * Subclasses can override this method to initialize their plugins. Plugins declared with
+     * {@link io.tylerchesley.sparkplugs.core.SparkPlugs} have already been added.
      */
     protected void initializePlugins() {
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.app.Activity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds and runs the generated {@link SparkPlugInstaller} for an activity class. The lookup is
+ * done once per class.
+ */
+public final class SparkPlugInstallers {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    /**
+     * Suffix the annotation processor appends to the binary name of the activity class.
+     */
+    public static final String SUFFIX = "$$SparkPlugInstaller";
+
+    private static final SparkPlugInstaller NO_INSTALLER = new SparkPlugInstaller() {
+        @Override
+        public void install(SparkPluginableActivity target) {
+
+        }
+    };
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final Map<Class<?>, SparkPlugInstaller> sInstallers =
+            new HashMap<Class<?>, SparkPlugInstaller>();
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private SparkPlugInstallers() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Adds the plugins generated for the activity's class, or for its nearest annotated
+     * superclass, to the target.
+     *
+     * @return false if no installer was generated for the class.
+     */
+    public static boolean install(Activity activity, SparkPluginableActivity target) {
+        final SparkPlugInstaller installer = find(activity.getClass());
+        if (installer == NO_INSTALLER) {
+            return false;
+        }
+
+        installer.install(target);
+        return true;
+    }
+
+    private static SparkPlugInstaller find(Class<?> activityClass) {
+        synchronized (sInstallers) {
+            SparkPlugInstaller installer = sInstallers.get(activityClass);
+            if (installer == null) {
+                installer = load(activityClass);
+                sInstallers.put(activityClass, installer);
+            }
+            return installer;
+        }
+    }
+
+    private static SparkPlugInstaller load(Class<?> activityClass) {
+        final String className = activityClass.getName();
+        if (className.startsWith("android.") || className.startsWith("java.")) {
+            return NO_INSTALLER;
+        }
+
+        try {
+            final Class<?> installerClass = Class.forName(className + SUFFIX, true,
+                    activityClass.getClassLoader());
+            return (SparkPlugInstaller) installerClass.newInstance();
+        }
+        catch (ClassNotFoundException e) {
+            final Class<?> superclass = activityClass.getSuperclass();
+            return superclass == null ? NO_INSTALLER : find(superclass);
+        }
+        catch (InstantiationException e) {
+            throw new IllegalStateException("Unable to create " + className + SUFFIX, e);
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to create " + className + SUFFIX, e);
+        }
+    }
+
+}
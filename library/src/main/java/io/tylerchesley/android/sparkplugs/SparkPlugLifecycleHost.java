@@ -0,0 +1,335 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Bundle;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attaches plugins to any activity in the process through
+ * {@link android.app.Application.ActivityLifecycleCallbacks}, without subclassing one of the
+ * SparkPlug activity classes. Requires API 14 (Ice Cream Sandwich).
+ *
+ * Plugins are attached by {@link Rule}: either one shared plugin instance used by every matching
+ * activity, which suits stateless plugins such as {@link
+ * io.tylerchesley.android.sparkplugs.plugins.ActivityLogPlugin}, or a {@link PluginFactory} that
+ * adds fresh plugins to each matching activity. Rules are matched once per activity class.
+ *
+ * <pre>
+ * SparkPlugLifecycleHost.register(this)
+ *         .addPlugin(SparkPlugLifecycleHost.allActivities(), new ActivityLogPlugin(TAG))
+ *         .addPlugins(SparkPlugLifecycleHost.annotatedWith(SingleFragment.class), factory);
+ * </pre>
+ *
+ * The framework callbacks have no equivalent of {@code onRestart()} or
+ * {@code onRestoreInstanceState()}, so plugins attached through the host never receive them.
+ * Memory callbacks are taken from the application and sent to every attached activity.
+ * Activities extending the SparkPlug activity classes receive the host's plugins in addition to
+ * their own.
+ */
+@TargetApi(14)
+public final class SparkPlugLifecycleHost implements Application.ActivityLifecycleCallbacks,
+        ComponentCallbacks2 {
+
+//------------------------------------------
+//  Interfaces
+//------------------------------------------
+
+    /**
+     * Selects the activity classes a registration applies to.
+     */
+    public interface Rule {
+
+        boolean matches(Class<? extends Activity> activityClass);
+
+    }
+
+    /**
+     * Adds the plugins for one activity instance.
+     */
+    public interface PluginFactory {
+
+        void addPlugins(Activity activity, SparkPluginableActivity target);
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Creates a host and registers it with the application.
+     */
+    public static SparkPlugLifecycleHost register(Application application) {
+        final SparkPlugLifecycleHost host = new SparkPlugLifecycleHost(application);
+        application.registerActivityLifecycleCallbacks(host);
+        application.registerComponentCallbacks(host);
+        return host;
+    }
+
+    public static Rule allActivities() {
+        return new Rule() {
+            @Override
+            public boolean matches(Class<? extends Activity> activityClass) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Matches the given activity class and its subclasses.
+     */
+    public static Rule forClass(final Class<? extends Activity> type) {
+        if (type == null) {
+            throw new NullPointerException("Activity class may not be null.");
+        }
+
+        return new Rule() {
+            @Override
+            public boolean matches(Class<? extends Activity> activityClass) {
+                return type.isAssignableFrom(activityClass);
+            }
+        };
+    }
+
+    /**
+     * Matches activity classes carrying the given annotation, which must have runtime
+     * retention.
+     */
+    public static Rule annotatedWith(final Class<? extends Annotation> annotation) {
+        if (annotation == null) {
+            throw new NullPointerException("Annotation may not be null.");
+        }
+
+        return new Rule() {
+            @Override
+            public boolean matches(Class<? extends Activity> activityClass) {
+                return activityClass.isAnnotationPresent(annotation);
+            }
+        };
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Application mApplication;
+
+    private final List<Registration> mRegistrations = new ArrayList<Registration>();
+
+    private final Map<Class<?>, Registration[]> mMatches = new HashMap<Class<?>, Registration[]>();
+
+    private final Map<Activity, SparkPlugActivityHelper> mHelpers =
+            new IdentityHashMap<Activity, SparkPlugActivityHelper>();
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private SparkPlugLifecycleHost(Application application) {
+        if (application == null) {
+            throw new NullPointerException("Application may not be null.");
+        }
+
+        mApplication = application;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Adds a single plugin instance, shared by every matching activity.
+     */
+    public SparkPlugLifecycleHost addPlugin(Rule rule, final SparkPlug plugin) {
+        if (plugin == null) {
+            throw new NullPointerException("Plugin may not be null.");
+        }
+
+        return addPlugins(rule, new PluginFactory() {
+            @Override
+            public void addPlugins(Activity activity, SparkPluginableActivity target) {
+                target.addActivityPlugin(plugin);
+            }
+        });
+    }
+
+    /**
+     * Calls the factory for every matching activity when it is created.
+     */
+    public SparkPlugLifecycleHost addPlugins(Rule rule, PluginFactory factory) {
+        if (rule == null) {
+            throw new NullPointerException("Rule may not be null.");
+        }
+
+        if (factory == null) {
+            throw new NullPointerException("Factory may not be null.");
+        }
+
+        mRegistrations.add(new Registration(rule, factory));
+        mMatches.clear();
+        return this;
+    }
+
+    /**
+     * Returns the plugins the host attached to the given activity, or null if none.
+     */
+    public SparkPluginableActivity getPlugins(Activity activity) {
+        return mHelpers.get(activity);
+    }
+
+    /**
+     * Stops attaching plugins to activities created from now on.
+     */
+    public void unregister() {
+        mApplication.unregisterActivityLifecycleCallbacks(this);
+        mApplication.unregisterComponentCallbacks(this);
+    }
+
+    private SparkPlugActivityHelper[] helpers() {
+        return mHelpers.values().toArray(new SparkPlugActivityHelper[mHelpers.size()]);
+    }
+
+    private Registration[] matchesFor(Class<? extends Activity> activityClass) {
+        Registration[] matches = mMatches.get(activityClass);
+        if (matches == null) {
+            final List<Registration> matching = new ArrayList<Registration>();
+            for (Registration registration : mRegistrations) {
+                if (registration.mRule.matches(activityClass)) {
+                    matching.add(registration);
+                }
+            }
+            matches = matching.toArray(new Registration[matching.size()]);
+            mMatches.put(activityClass, matches);
+        }
+        return matches;
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        final Registration[] matches = matchesFor(activity.getClass());
+        if (matches.length == 0) {
+            return;
+        }
+
+        final SparkPlugActivityHelper helper = new SparkPlugActivityHelper(activity);
+        for (Registration registration : matches) {
+            registration.mFactory.addPlugins(activity, helper);
+        }
+        mHelpers.put(activity, helper);
+        helper.onCreate(savedInstanceState);
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        final SparkPlugActivityHelper helper = mHelpers.get(activity);
+        if (helper != null) {
+            helper.onStart();
+        }
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        final SparkPlugActivityHelper helper = mHelpers.get(activity);
+        if (helper != null) {
+            helper.onResume();
+        }
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+        final SparkPlugActivityHelper helper = mHelpers.get(activity);
+        if (helper != null) {
+            helper.onPause();
+        }
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        final SparkPlugActivityHelper helper = mHelpers.get(activity);
+        if (helper != null) {
+            helper.onStop();
+        }
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        final SparkPlugActivityHelper helper = mHelpers.get(activity);
+        if (helper != null) {
+            helper.onSaveInstanceState(outState);
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        final SparkPlugActivityHelper helper = mHelpers.remove(activity);
+        if (helper != null) {
+            helper.onDestroy();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        for (SparkPlugActivityHelper helper : helpers()) {
+            helper.onTrimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        for (SparkPlugActivityHelper helper : helpers()) {
+            helper.onLowMemory();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Registration {
+
+        final Rule mRule;
+        final PluginFactory mFactory;
+
+        Registration(Rule rule, PluginFactory factory) {
+            mRule = rule;
+            mFactory = factory;
+        }
+
+    }
+
+}
@@ -26,4 +26,9 @@ public interface SparkPluginableActivity {
 
     void removeActivityPlugin(SparkPlug plugin);
 
+    /**
+     * Returns the first added plugin that is an instance of the given type, or null.
+     */
+    <T extends SparkPlug> T getActivityPlugin(Class<T> type);
+
 }
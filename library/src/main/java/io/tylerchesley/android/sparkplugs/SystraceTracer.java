@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+import io.tylerchesley.sparkplugs.core.PluginTracer;
+
+/**
+ * Writes plugin callback sections to systrace through {@link android.os.Trace}. Does nothing
+ * before API 18 (Jelly Bean MR2).
+ *
+ * Enable it for every activity with
+ * {@code PluginDispatcher.setDefaultTracer(new SystraceTracer())}.
+ */
+public final class SystraceTracer implements PluginTracer {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final boolean ENABLED =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    @TargetApi(18)
+    public void beginSection(String name) {
+        if (ENABLED) {
+            Trace.beginSection(name);
+        }
+    }
+
+    @Override
+    @TargetApi(18)
+    public void endSection() {
+        if (ENABLED) {
+            Trace.endSection();
+        }
+    }
+
+}
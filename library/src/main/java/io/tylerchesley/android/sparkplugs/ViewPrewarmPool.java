@@ -0,0 +1,259 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide pool of layouts inflated ahead of use, while the main thread is idle.
+ *
+ * {@link #prewarm(Context, int, int)} queues inflations, one per idle pass so that no frame is
+ * held up. {@link #setContentView(Activity, int)} hands a pooled view hierarchy to the activity
+ * and falls back to inflating it synchronously when the pool is empty.
+ *
+ * Pooled views are inflated with the application context, wrapped in the manifest theme of the
+ * activity passed to {@link #prewarm(Context, int, int)}. A pooled view is only handed to an
+ * activity with the same theme; others inflate synchronously. Themes set in code are not seen,
+ * and the views' context is not the activity, so the pool only suits plain container layouts.
+ * All methods must be called on the main thread.
+ */
+public final class ViewPrewarmPool {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    /**
+     * Largest number of views kept per layout.
+     */
+    public static final int MAX_POOL_SIZE = 2;
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static ViewPrewarmPool sInstance;
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    public static ViewPrewarmPool getInstance() {
+        if (sInstance == null) {
+            sInstance = new ViewPrewarmPool();
+        }
+        return sInstance;
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final SparseArray<List<View>> mPool = new SparseArray<List<View>>();
+    private final SparseArray<Integer> mPending = new SparseArray<Integer>();
+    private final SparseArray<Integer> mThemes = new SparseArray<Integer>();
+    private final Map<String, Integer> mActivityThemes = new HashMap<String, Integer>();
+
+    private Context mContext;
+    private boolean mScheduled;
+    private int mHitCount;
+    private int mMissCount;
+
+    private final MessageQueue.IdleHandler mInflateHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mScheduled = inflateNext();
+            return mScheduled;
+        }
+    };
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private ViewPrewarmPool() {
+
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Fills the pool for the layout up to {@code count} views, at most {@link #MAX_POOL_SIZE},
+     * during the main thread's idle time. If the context is an activity, the views are inflated
+     * with its theme.
+     */
+    public void prewarm(Context context, int layoutResId, int count) {
+        mContext = context.getApplicationContext();
+
+        final int themeResId = getThemeResId(context);
+        if (themeResId != getPooledThemeResId(layoutResId)) {
+            mPool.remove(layoutResId);
+            mThemes.put(layoutResId, themeResId);
+        }
+
+        final int wanted = Math.min(count, MAX_POOL_SIZE) - pooled(layoutResId);
+        if (wanted <= 0) {
+            return;
+        }
+
+        mPending.put(layoutResId, wanted);
+        if (!mScheduled) {
+            Looper.myQueue().addIdleHandler(mInflateHandler);
+            mScheduled = true;
+        }
+    }
+
+    /**
+     * Removes and returns a pooled view for the layout, or null if there is none.
+     */
+    public View take(int layoutResId) {
+        final List<View> views = mPool.get(layoutResId);
+        if (views == null || views.isEmpty()) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return views.remove(views.size() - 1);
+    }
+
+    /**
+     * Sets the activity's content to a pooled view for the layout, or inflates it if none is
+     * pooled with the activity's theme.
+     *
+     * @return true if a pooled view was used.
+     */
+    public boolean setContentView(Activity activity, int layoutResId) {
+        View view = null;
+        if (getThemeResId(activity) == getPooledThemeResId(layoutResId)) {
+            view = take(layoutResId);
+        }
+        else {
+            mMissCount++;
+        }
+
+        if (view != null) {
+            activity.setContentView(view);
+            return true;
+        }
+
+        activity.setContentView(layoutResId);
+        return false;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Drops every pooled view and pending inflation.
+     */
+    public void clear() {
+        mPool.clear();
+        mPending.clear();
+        mThemes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ViewPrewarmPool[hits=" + mHitCount + ",misses=" + mMissCount + "]";
+    }
+
+    private int pooled(int layoutResId) {
+        final List<View> views = mPool.get(layoutResId);
+        return views == null ? 0 : views.size();
+    }
+
+    private int getPooledThemeResId(int layoutResId) {
+        final Integer themeResId = mThemes.get(layoutResId);
+        return themeResId == null ? 0 : themeResId;
+    }
+
+    /**
+     * Returns the manifest theme of the activity, or 0 for any other context. Looked up once per
+     * activity class.
+     */
+    private int getThemeResId(Context context) {
+        if (!(context instanceof Activity)) {
+            return 0;
+        }
+
+        final Activity activity = (Activity) context;
+        final String name = activity.getClass().getName();
+        Integer themeResId = mActivityThemes.get(name);
+        if (themeResId == null) {
+            try {
+                themeResId = activity.getPackageManager()
+                        .getActivityInfo(activity.getComponentName(), 0).getThemeResource();
+            }
+            catch (PackageManager.NameNotFoundException e) {
+                themeResId = 0;
+            }
+            mActivityThemes.put(name, themeResId);
+        }
+        return themeResId;
+    }
+
+    /**
+     * Inflates one pending view. Returns false once nothing is pending.
+     */
+    private boolean inflateNext() {
+        for (int i = 0; i < mPending.size(); i++) {
+            final int remaining = mPending.valueAt(i);
+            if (remaining <= 0) {
+                continue;
+            }
+
+            final int layoutResId = mPending.keyAt(i);
+            mPending.put(layoutResId, remaining - 1);
+
+            List<View> views = mPool.get(layoutResId);
+            if (views == null) {
+                views = new ArrayList<View>(MAX_POOL_SIZE);
+                mPool.put(layoutResId, views);
+            }
+            final int themeResId = getPooledThemeResId(layoutResId);
+            final Context context = themeResId == 0
+                    ? mContext : new ContextThemeWrapper(mContext, themeResId);
+            views.add(LayoutInflater.from(context).inflate(layoutResId, null, false));
+            return true;
+        }
+
+        mPending.clear();
+        return false;
+    }
+
+}
@@ -18,14 +18,32 @@ package io.tylerchesley.android.sparkplugs.plugins;
 
 import android.app.Application;
 import android.content.Context;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import dagger.ObjectGraph;
+import io.tylerchesley.sparkplugs.core.PluginExecutors;
 
 /**
  * @author Tyler Chesley (tylerchesley@gmail.com).
  */
 public abstract class AbstractDaggerApplication extends Application implements
-        DaggerPlugin.DaggerApplication {
+        DaggerPlugin.DaggerGraphApplication {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final String TAG = "DaggerApplication";
+
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
 
 //------------------------------------------
 //  Static Methods
@@ -39,7 +57,13 @@ public abstract class AbstractDaggerApplication extends Application implements
 //  Variables
 //------------------------------------------
 
-    private ObjectGraph mObjectGraph;
+    private final CountDownLatch mObjectGraphReady = new CountDownLatch(1);
+    private final AtomicLong mWaitNanos = new AtomicLong();
+    private final AtomicInteger mWaitCount = new AtomicInteger();
+    private final Map<Class<?>, Long> mWarmUpNanos = new LinkedHashMap<Class<?>, Long>();
+
+    private volatile ObjectGraph mObjectGraph;
+    private volatile RuntimeException mObjectGraphError;
 
 //------------------------------------------
 //  Overridden Methods
@@ -49,20 +73,145 @@ public abstract class AbstractDaggerApplication extends Application implements
     public void onCreate() {
         super.onCreate();
 
-        mObjectGraph = onCreateObjectGraph();
-        if (mObjectGraph == null) {
-            throw new NullPointerException("Object graph may not be null.");
+        if (isObjectGraphAsync()) {
+            PluginExecutors.shared().execute(new Runnable() {
+                @Override
+                public void run() {
+                    createObjectGraph();
+                }
+            });
+        }
+        else {
+            createObjectGraph();
+            if (mObjectGraphError != null) {
+                throw mObjectGraphError;
+            }
         }
-        mObjectGraph.inject(this);
     }
 
 //------------------------------------------
 //  Methods
 //------------------------------------------
 
+    /**
+     * Injects the object, first waiting for the object graph if it is still being created in
+     * the background.
+     */
     @Override
     public void inject(Object object) {
-        mObjectGraph.inject(object);
+        InjectionMetrics.inject(getObjectGraph(), object);
+    }
+
+    /**
+     * Returns the application graph, first waiting for it if it is still being created in the
+     * background.
+     */
+    @Override
+    public ObjectGraph getObjectGraph() {
+        if (mObjectGraphReady.getCount() != 0) {
+            final long start = System.nanoTime();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mObjectGraphReady.await();
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            mWaitNanos.addAndGet(System.nanoTime() - start);
+            mWaitCount.incrementAndGet();
+        }
+
+        if (mObjectGraphError != null) {
+            throw new IllegalStateException("Object graph creation failed.", mObjectGraphError);
+        }
+        return mObjectGraph;
+    }
+
+    /**
+     * Returns true if the object graph has been created and the application injected.
+     */
+    public boolean isObjectGraphReady() {
+        return mObjectGraphReady.getCount() == 0;
+    }
+
+    /**
+     * Returns the total time callers have spent waiting for the object graph, in milliseconds.
+     */
+    public long getObjectGraphWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mWaitNanos.get());
+    }
+
+    /**
+     * Returns how many callers had to wait for the object graph.
+     */
+    public int getObjectGraphWaitCount() {
+        return mWaitCount.get();
+    }
+
+    /**
+     * Returns how long each warm-up type took to construct, in milliseconds, in the order the
+     * types finished. Types that failed or have not finished yet are missing.
+     */
+    public Map<Class<?>, Long> getWarmUpMillis() {
+        final Map<Class<?>, Long> millis = new LinkedHashMap<Class<?>, Long>();
+        synchronized (mWarmUpNanos) {
+            for (Map.Entry<Class<?>, Long> entry : mWarmUpNanos.entrySet()) {
+                millis.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(millis);
+    }
+
+    /**
+     * Returns the types to resolve from the graph on the low-priority
+     * {@link PluginExecutors#warmUp() warm-up executor} as soon as it is created, so that
+     * expensive singletons are built in parallel and off the main thread before the first
+     * activity injects them, without delaying plugin callbacks. Returns no types by default.
+     *
+     * The time to resolve each type, which includes any of its dependencies that were not built
+     * yet, is available from {@link #getWarmUpMillis()}.
+     */
+    protected Class<?>[] getWarmUpTypes() {
+        return NO_TYPES;
+    }
+
+    /**
+     * Returns true to create the object graph on a background thread instead of in
+     * {@link #onCreate()}. Callers of {@link #inject(Object)} then block only until the graph is
+     * ready, and the application itself is injected on the background thread, so its injected
+     * fields must not be read from {@code onCreate}. Returns false by default.
+     */
+    protected boolean isObjectGraphAsync() {
+        return false;
+    }
+
+    private void createObjectGraph() {
+        try {
+            final ObjectGraph objectGraph = onCreateObjectGraph();
+            if (objectGraph == null) {
+                throw new NullPointerException("Object graph may not be null.");
+            }
+            objectGraph.inject(this);
+            mObjectGraph = objectGraph;
+        }
+        catch (RuntimeException e) {
+            mObjectGraphError = e;
+        }
+        finally {
+            mObjectGraphReady.countDown();
+        }
+
+        if (mObjectGraph != null) {
+            for (Class<?> type : getWarmUpTypes()) {
+                PluginExecutors.warmUp().execute(new WarmUp(mObjectGraph, type));
+            }
+        }
     }
 
 //------------------------------------------
@@ -71,4 +220,39 @@ public abstract class AbstractDaggerApplication extends Application implements
 
     abstract protected ObjectGraph onCreateObjectGraph();
 
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private final class WarmUp implements Runnable {
+
+        private final ObjectGraph mObjectGraph;
+        private final Class<?> mType;
+
+        WarmUp(ObjectGraph objectGraph, Class<?> type) {
+            mObjectGraph = objectGraph;
+            mType = type;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            try {
+                mObjectGraph.get(mType);
+            }
+            catch (RuntimeException e) {
+                Log.w(TAG, "Unable to warm up " + mType.getName(), e);
+                return;
+            }
+
+            final long nanos = System.nanoTime() - start;
+            synchronized (mWarmUpNanos) {
+                mWarmUpNanos.put(mType, nanos);
+            }
+            Log.d(TAG, "Warmed up " + mType.getName() + " in " +
+                    TimeUnit.NANOSECONDS.toMillis(nanos) + "ms");
+        }
+
+    }
+
 }
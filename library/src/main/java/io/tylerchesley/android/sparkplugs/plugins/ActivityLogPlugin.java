@@ -27,6 +27,12 @@ import io.tylerchesley.android.sparkplugs.SparkPlugBase;
  */
 public class ActivityLogPlugin extends SparkPlugBase {
 
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    public static final String DEFAULT_TAG = "SparkPlugs";
+
 //------------------------------------------
 //  Interface
 //------------------------------------------
@@ -48,6 +54,10 @@ public class ActivityLogPlugin extends SparkPlugBase {
 //  Constructor
 //------------------------------------------
 
+    public ActivityLogPlugin() {
+        this(DEFAULT_TAG);
+    }
+
     public ActivityLogPlugin(String tag) {
         this(tag, new DefaultLogger());
     }
@@ -104,6 +114,26 @@ public class ActivityLogPlugin extends SparkPlugBase {
         mLogger.log(mTag, "onDestroy()");
     }
 
+    @Override
+    public void onTrimMemory(Activity activity, int level) {
+        mLogger.log(mTag, "onTrimMemory(" + level + ")");
+    }
+
+    @Override
+    public void onLowMemory(Activity activity) {
+        mLogger.log(mTag, "onLowMemory()");
+    }
+
+    @Override
+    public void onSaveInstanceState(Activity activity, Bundle outState) {
+        mLogger.log(mTag, "onSaveInstanceState()");
+    }
+
+    @Override
+    public void onRestoreInstanceState(Activity activity, Bundle savedInstanceState) {
+        mLogger.log(mTag, "onRestoreInstanceState()");
+    }
+
 //------------------------------------------
 //  Inner Classes
 //------------------------------------------
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.support.v4.util.LruCache;
+
+import io.tylerchesley.android.sparkplugs.RetainedSparkPlug;
+import io.tylerchesley.android.sparkplugs.SparkPlugBase;
+
+/**
+ * Activity-scoped LRU cache for objects that are expensive to recompute, such as formatted text
+ * or decoded images. Look it up with
+ * {@link io.tylerchesley.android.sparkplugs.SparkPluginableActivity#getActivityPlugin(Class)}.
+ *
+ * The cache is bounded by {@code maxSize}, measured by a {@link Sizer} or in entries by default.
+ * It is trimmed to its stopped size in {@code onStop}, survives configuration changes as a
+ * {@link RetainedSparkPlug}, and is cleared in {@code onDestroy} when the activity is finishing.
+ * Memory pressure trims it at {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN} and clears it at
+ * {@link ComponentCallbacks2#TRIM_MEMORY_BACKGROUND}, following
+ * {@link MemoryEvictionPlugin#shouldEvict(int, int)}.
+ */
+public class CachePlugin<K, V> extends SparkPlugBase implements RetainedSparkPlug {
+
+//------------------------------------------
+//  Interface
+//------------------------------------------
+
+    public interface Sizer<K, V> {
+
+        int sizeOf(K key, V value);
+
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Cache<K, V> mCache;
+    private int mStoppedSize;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public CachePlugin(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param sizer measures entries in the same unit as {@code maxSize}, or null to count
+     * entries.
+     */
+    public CachePlugin(int maxSize, Sizer<K, V> sizer) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+
+        mCache = new Cache<K, V>(maxSize, sizer);
+        mStoppedSize = maxSize / 2;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    public V get(K key) {
+        return mCache.get(key);
+    }
+
+    public V put(K key, V value) {
+        return mCache.put(key, value);
+    }
+
+    public V remove(K key) {
+        return mCache.remove(key);
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Sets the size the cache is trimmed to while the activity is stopped. Defaults to half of
+     * the maximum size.
+     */
+    public void setStoppedSize(int stoppedSize) {
+        mStoppedSize = stoppedSize;
+    }
+
+    public int size() {
+        return mCache.size();
+    }
+
+    public int maxSize() {
+        return mCache.maxSize();
+    }
+
+    public int hitCount() {
+        return mCache.hitCount();
+    }
+
+    public int missCount() {
+        return mCache.missCount();
+    }
+
+    public int evictionCount() {
+        return mCache.evictionCount();
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onStop(Activity activity) {
+        mCache.trimToSize(mStoppedSize);
+    }
+
+    @Override
+    public void onDestroy(Activity activity) {
+        if (activity.isFinishing()) {
+            mCache.evictAll();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(Activity activity, int level) {
+        if (MemoryEvictionPlugin.shouldEvict(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, level)) {
+            mCache.evictAll();
+        }
+        else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            mCache.trimToSize(mStoppedSize);
+        }
+    }
+
+    @Override
+    public void onLowMemory(Activity activity) {
+        mCache.evictAll();
+    }
+
+    @Override
+    public String toString() {
+        final int hits = mCache.hitCount();
+        final int accesses = hits + mCache.missCount();
+        return "CachePlugin[size=" + mCache.size() + ",maxSize=" + mCache.maxSize() +
+                ",hits=" + hits + ",misses=" + mCache.missCount() +
+                ",evictions=" + mCache.evictionCount() +
+                ",hitRate=" + (accesses == 0 ? 0 : 100 * hits / accesses) + "%]";
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Cache<K, V> extends LruCache<K, V> {
+
+        private final Sizer<K, V> mSizer;
+
+        Cache(int maxSize, Sizer<K, V> sizer) {
+            super(maxSize);
+
+            mSizer = sizer;
+        }
+
+        @Override
+        protected int sizeOf(K key, V value) {
+            return mSizer == null ? 1 : mSizer.sizeOf(key, value);
+        }
+
+    }
+
+}
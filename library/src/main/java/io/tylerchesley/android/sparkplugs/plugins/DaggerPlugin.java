@@ -20,12 +20,120 @@ import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import dagger.ObjectGraph;
+import io.tylerchesley.android.sparkplugs.RetainedSparkPlug;
 import io.tylerchesley.android.sparkplugs.SparkPlugBase;
 
 /**
- * @author Tyler Chesley (tylerchesley@gmail.com).
+ * Injects the activity in {@code onCreate}. Without modules the activity is injected from the
+ * application graph. With modules it is injected from an activity-scoped graph, created with
+ * {@link ObjectGraph#plus(Object...)} and reused until the activity finishes; the application
+ * must then implement {@link DaggerGraphApplication}.
+ *
+ * A scoped graph is kept per activity instance by default and survives configuration changes as
+ * a {@link RetainedSparkPlug}. Use {@link #cachedPerClass(Object...)} to share one graph between
+ * all instances of the activity class; it is released when the last instance finishes. Either
+ * way the modules outlive the activity they were created for, so they must not hold on to it.
  */
-public class DaggerPlugin extends SparkPlugBase {
+public class DaggerPlugin extends SparkPlugBase implements RetainedSparkPlug {
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final Object[] NO_MODULES = new Object[0];
+
+    private static final Map<Class<?>, ClassGraph> sClassGraphs =
+            new HashMap<Class<?>, ClassGraph>();
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns a plugin whose scoped graph is shared by every instance of the activity class.
+     * Only the modules of the plugin that creates the graph are used.
+     */
+    public static DaggerPlugin cachedPerClass(Object... modules) {
+        return new DaggerPlugin(true, modules);
+    }
+
+    private static ObjectGraph acquireClassGraph(Class<?> activityClass, ObjectGraph parent,
+                                                 Object[] modules) {
+        synchronized (sClassGraphs) {
+            ClassGraph classGraph = sClassGraphs.get(activityClass);
+            if (classGraph == null) {
+                classGraph = new ClassGraph(parent.plus(modules));
+                sClassGraphs.put(activityClass, classGraph);
+            }
+            classGraph.mReferences++;
+            return classGraph.mObjectGraph;
+        }
+    }
+
+    private static void releaseClassGraph(Class<?> activityClass, boolean finishing) {
+        synchronized (sClassGraphs) {
+            final ClassGraph classGraph = sClassGraphs.get(activityClass);
+            if (classGraph != null && --classGraph.mReferences <= 0 && finishing) {
+                sClassGraphs.remove(activityClass);
+            }
+        }
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Object[] mModules;
+    private final boolean mCachedPerClass;
+    private ObjectGraph mObjectGraph;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public DaggerPlugin() {
+        this(false, NO_MODULES);
+    }
+
+    /**
+     * @param modules the activity modules added to the application graph for this activity.
+     */
+    public DaggerPlugin(Object... modules) {
+        this(false, modules);
+    }
+
+    private DaggerPlugin(boolean cachedPerClass, Object[] modules) {
+        if (modules == null) {
+            throw new NullPointerException("Modules may not be null.");
+        }
+
+        mModules = modules;
+        mCachedPerClass = cachedPerClass;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Returns the activity-scoped graph, or null if the plugin has no modules or the activity has
+     * not been created.
+     */
+    public ObjectGraph getObjectGraph() {
+        return mObjectGraph;
+    }
+
+    /**
+     * Returns the modules to add to the application graph for the given activity. Called only
+     * when a scoped graph is created. Returns the constructor modules by default.
+     */
+    protected Object[] getModules(Activity activity) {
+        return mModules;
+    }
 
 //------------------------------------------
 //  Overridden Methods
@@ -41,7 +149,37 @@ public class DaggerPlugin extends SparkPlugBase {
                     "DaggerApplication interface");
         }
         final DaggerApplication daggerApplication = (DaggerApplication) application;
-        daggerApplication.inject(activity);
+
+        if (mObjectGraph == null) {
+            final Object[] modules = getModules(activity);
+            if (modules.length == 0) {
+                daggerApplication.inject(activity);
+                return;
+            }
+
+            if (!(application instanceof DaggerGraphApplication)) {
+                throw new IllegalStateException("Your application must implement the " +
+                        "DaggerGraphApplication interface to use activity modules");
+            }
+            final ObjectGraph parent =
+                    ((DaggerGraphApplication) application).getObjectGraph();
+            mObjectGraph = mCachedPerClass ?
+                    acquireClassGraph(activity.getClass(), parent, modules) :
+                    parent.plus(modules);
+        }
+        InjectionMetrics.inject(mObjectGraph, activity);
+    }
+
+    @Override
+    public void onDestroy(Activity activity) {
+        super.onDestroy(activity);
+
+        if (mObjectGraph != null) {
+            if (mCachedPerClass) {
+                releaseClassGraph(activity.getClass(), activity.isFinishing());
+            }
+            mObjectGraph = null;
+        }
     }
 
 //------------------------------------------
@@ -54,4 +192,28 @@ public class DaggerPlugin extends SparkPlugBase {
 
     }
 
+    /**
+     * Application that exposes its object graph, required for activity modules.
+     */
+    public static interface DaggerGraphApplication extends DaggerApplication {
+
+        ObjectGraph getObjectGraph();
+
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class ClassGraph {
+
+        final ObjectGraph mObjectGraph;
+        int mReferences;
+
+        ClassGraph(ObjectGraph objectGraph) {
+            mObjectGraph = objectGraph;
+        }
+
+    }
+
 }
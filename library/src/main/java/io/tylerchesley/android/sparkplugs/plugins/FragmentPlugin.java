@@ -20,6 +20,7 @@ import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentTransaction;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
@@ -30,6 +31,8 @@ import java.security.InvalidParameterException;
 
 import io.tylerchesley.android.sparkplugs.R;
 import io.tylerchesley.android.sparkplugs.SparkPlugBase;
+import io.tylerchesley.android.sparkplugs.ViewPrewarmPool;
+import io.tylerchesley.sparkplugs.core.DependsOn;
 
 public abstract class FragmentPlugin<F> extends SparkPlugBase {
 
@@ -79,21 +82,19 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
      * Converts an intent into a {@link android.os.Bundle} suitable for use as fragment arguments.
      */
     public static Bundle intentToFragmentArguments(Intent intent) {
-        Bundle arguments = new Bundle();
         if (intent == null) {
-            return arguments;
+            return new Bundle();
         }
 
+        // getExtras() already returns a copy, so it can be used as is.
+        final Bundle extras = intent.getExtras();
+        final Bundle arguments = extras != null ? extras : new Bundle();
+
         final Uri data = intent.getData();
         if (data != null) {
             arguments.putParcelable(ARG_URI, data);
         }
 
-        final Bundle extras = intent.getExtras();
-        if (extras != null) {
-            arguments.putAll(intent.getExtras());
-        }
-
         return arguments;
     }
 
@@ -126,6 +127,9 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
     private final int mLayoutResourceId;
     private final int mContainerId;
 
+    private Batch mBatch;
+    private Intent mArgumentsIntent;
+
 //------------------------------------------
 //  Constructor
 //------------------------------------------
@@ -154,12 +158,26 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
     @Override
     public void onCreate(Activity activity, Bundle savedInstanceState) {
         if (mLayoutResourceId != INVALID_RESOURCE_ID) {
-            activity.setContentView(mLayoutResourceId);
+            final ViewPrewarmPool pool = ViewPrewarmPool.getInstance();
+            if (pool.setContentView(activity, mLayoutResourceId)) {
+                // Refill while idle so the next activity using the layout finds it ready.
+                pool.prewarm(activity, mLayoutResourceId, 1);
+            }
         }
 
         onCreateFragment(activity, mFragmentClass, mArguments, mTag, mContainerId);
     }
 
+    @Override
+    public void onTrimMemory(Activity activity, int level) {
+        FragmentPrewarmer.evictAll();
+    }
+
+    @Override
+    public void onLowMemory(Activity activity) {
+        FragmentPrewarmer.evictAll();
+    }
+
 //------------------------------------------
 //  Methods
 //------------------------------------------
@@ -169,6 +187,34 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
 
     public abstract F getFragment();
 
+    /**
+     * Returns the batch whose transaction the fragment is added to, or null if the plugin
+     * commits its own transaction.
+     */
+    protected Batch getBatch() {
+        return mBatch;
+    }
+
+    void setBatch(Batch batch) {
+        mBatch = batch;
+    }
+
+    /**
+     * Returns the arguments for a fragment about to be created: the given arguments if any,
+     * otherwise the extras of the intent the plugin was built with, converted on first use.
+     */
+    protected Bundle getFragmentArguments(Bundle arguments) {
+        if (arguments == null && mArgumentsIntent != null) {
+            arguments = intentToFragmentArguments(mArgumentsIntent);
+            mArgumentsIntent = null;
+        }
+        return arguments;
+    }
+
+    void setArgumentsIntent(Intent intent) {
+        mArgumentsIntent = intent;
+    }
+
 //------------------------------------------
 //  Inner Classes
 //------------------------------------------
@@ -182,6 +228,8 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
         private String mTag = SINGLE_FRAGMENT_TAG;
         private int mLayoutResourceId = R.layout.activity_single_fragment_plugin;
         private int mContainerId = R.id.single_fragment_container;
+        private Batch mBatch;
+        private Intent mArgumentsIntent;
 
         Builder(Class<F> fragmentClass, boolean isSupportFragment) {
             mFragmentClass = fragmentClass;
@@ -190,11 +238,18 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
 
         public Builder<F> arguments(Bundle arguments) {
             mArguments = arguments;
+            mArgumentsIntent = null;
             return this;
         }
 
+        /**
+         * Uses the intent's data and extras as the fragment arguments. They are copied only when
+         * the fragment is created, not when it is restored by the fragment manager.
+         */
         public Builder<F> arguments(Intent intent) {
-            return arguments(intentToFragmentArguments(intent));
+            mArguments = null;
+            mArgumentsIntent = intent;
+            return this;
         }
 
         public Builder<F> tag(String tag) {
@@ -222,14 +277,114 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
             return this;
         }
 
+        /**
+         * Loads the fragment class and constructs an instance on a background thread, so that
+         * a plugin built later with the same class and tag, typically in the activity being
+         * launched, commits a ready instance. Call it when building the launching intent. An
+         * instance that is not taken within a few seconds is dropped.
+         */
+        public Builder<F> prewarm() {
+            return prewarm(true);
+        }
+
+        /**
+         * @param construct false to only load and initialize the fragment class.
+         */
+        public Builder<F> prewarm(boolean construct) {
+            FragmentPrewarmer.prewarm(mFragmentClass, mTag, construct);
+            return this;
+        }
+
+        /**
+         * Adds the fragment to the batch's shared transaction instead of committing a
+         * transaction of its own. The batch must be added to the activity as well.
+         */
+        public Builder<F> batch(Batch batch) {
+            mBatch = batch;
+            return this;
+        }
+
+        /**
+         * Inflates the container layout while the main thread is idle, ahead of the first
+         * activity that uses it. Pass the activity, or another activity with the same manifest
+         * theme, so the view is inflated with that theme. The view's context is not the activity,
+         * so only use this for plain container layouts. See {@link ViewPrewarmPool}.
+         */
+        public Builder<F> prewarmLayout(Context context) {
+            if (mLayoutResourceId != INVALID_RESOURCE_ID) {
+                ViewPrewarmPool.getInstance().prewarm(context, mLayoutResourceId, 1);
+            }
+            return this;
+        }
+
         public FragmentPlugin<F> build() {
+            final FragmentPlugin<F> plugin;
             if (mIsSupportFragment) {
-                return new SupportFragmentPlugin(mFragmentClass, mArguments, mTag,
+                plugin = new SupportFragmentPlugin(mFragmentClass, mArguments, mTag,
                         mLayoutResourceId, mContainerId);
             }
+            else {
+                plugin = new FragmentPluginImpl(mFragmentClass, mArguments, mTag,
+                        mLayoutResourceId, mContainerId);
+            }
+            plugin.setBatch(mBatch);
+            plugin.setArgumentsIntent(mArgumentsIntent);
+            return plugin;
+        }
+
+    }
+
+    /**
+     * Collects the fragments of several fragment plugins into one transaction per fragment
+     * manager, committed once in {@code onCreate} after every {@link FragmentPlugin} has run.
+     *
+     * <pre>
+     * FragmentPlugin.Batch batch = new FragmentPlugin.Batch();
+     * addActivityPlugin(FragmentPlugin.newPlugin(HeaderFragment.class).batch(batch).build());
+     * addActivityPlugin(FragmentPlugin.newPlugin(FeedFragment.class).batch(batch).build());
+     * addActivityPlugin(batch);
+     * </pre>
+     */
+    @DependsOn(FragmentPlugin.class)
+    public static final class Batch extends SparkPlugBase {
+
+        private FragmentTransaction mTransaction;
+        private android.support.v4.app.FragmentTransaction mSupportTransaction;
+
+        @TargetApi(11)
+        FragmentTransaction transaction(Activity activity) {
+            if (mTransaction == null) {
+                mTransaction = activity.getFragmentManager().beginTransaction();
+            }
+            return mTransaction;
+        }
 
-            return new FragmentPluginImpl(mFragmentClass, mArguments, mTag,
-                    mLayoutResourceId, mContainerId);
+        android.support.v4.app.FragmentTransaction supportTransaction(
+                android.support.v4.app.FragmentActivity activity) {
+            if (mSupportTransaction == null) {
+                mSupportTransaction = activity.getSupportFragmentManager().beginTransaction();
+            }
+            return mSupportTransaction;
+        }
+
+        @Override
+        @TargetApi(11)
+        public void onCreate(Activity activity, Bundle savedInstanceState) {
+            if (mTransaction != null) {
+                mTransaction.commit();
+                mTransaction = null;
+            }
+
+            if (mSupportTransaction != null) {
+                mSupportTransaction.commit();
+                mSupportTransaction = null;
+            }
+        }
+
+        @Override
+        public void onDestroy(Activity activity) {
+            mTransaction = null;
+            mSupportTransaction = null;
         }
 
     }
@@ -251,17 +406,32 @@ public abstract class FragmentPlugin<F> extends SparkPlugBase {
             mFragment = (F) activity.getFragmentManager().findFragmentByTag(tag);
 
             if (mFragment == null) {
-                mFragment = (F) Fragment.instantiate(activity,
-                        fragmentClass.getName(), arguments);
-                final FragmentTransaction transaction = activity.getFragmentManager()
-                        .beginTransaction();
+                arguments = getFragmentArguments(arguments);
+                mFragment = FragmentPrewarmer.take(fragmentClass, tag);
+                if (mFragment != null) {
+                    if (arguments != null) {
+                        arguments.setClassLoader(fragmentClass.getClassLoader());
+                    }
+                    mFragment.setArguments(arguments);
+                }
+                else {
+                    mFragment = (F) Fragment.instantiate(activity,
+                            fragmentClass.getName(), arguments);
+                }
+                final Batch batch = getBatch();
+                final FragmentTransaction transaction = batch != null ?
+                        batch.transaction(activity) :
+                        activity.getFragmentManager().beginTransaction();
                 if (containerId > 0) {
                     transaction.add(containerId, mFragment, tag);
                 }
                 else {
                     transaction.add(mFragment, tag);
                 }
-                transaction.commit();
+
+                if (batch == null) {
+                    transaction.commit();
+                }
             }
         }
 
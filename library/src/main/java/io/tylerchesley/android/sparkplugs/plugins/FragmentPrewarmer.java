@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import io.tylerchesley.sparkplugs.core.PluginExecutors;
+
+/**
+ * Loads fragment classes and constructs fragment instances on a background thread ahead of
+ * {@link FragmentPlugin#onCreateFragment}. At most one instance is kept per class and tag.
+ *
+ * Construction uses the class's no-argument constructor directly rather than
+ * {@code Fragment.instantiate}, whose class cache is not thread-safe. Arguments are set on the
+ * main thread when the instance is taken.
+ *
+ * An instance that is not taken within {@link #TIME_TO_LIVE_MILLIS}, because the launch it was
+ * prewarmed for was abandoned, is dropped rather than handed to an unrelated later launch.
+ * All instances are dropped when memory is low.
+ */
+final class FragmentPrewarmer {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    static final long TIME_TO_LIVE_MILLIS = 10 * 1000;
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final Map<String, Entry> sInstances = new HashMap<String, Entry>();
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private FragmentPrewarmer() {
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Loads and initializes the class in the background and, if {@code construct} is true,
+     * creates an instance for {@link #take(Class, String)}.
+     */
+    static void prewarm(final Class<?> fragmentClass, String tag, boolean construct) {
+        if (!construct) {
+            PluginExecutors.shared().execute(new Runnable() {
+                @Override
+                public void run() {
+                    load(fragmentClass);
+                }
+            });
+            return;
+        }
+
+        final FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return load(fragmentClass).newInstance();
+            }
+        });
+
+        synchronized (sInstances) {
+            final long now = SystemClock.elapsedRealtime();
+            evictExpired(now);
+            final String key = keyOf(fragmentClass, tag);
+            if (sInstances.containsKey(key)) {
+                return;
+            }
+            sInstances.put(key, new Entry(task, now));
+        }
+        PluginExecutors.shared().execute(task);
+    }
+
+    /**
+     * Returns the prewarmed instance for the class and tag, or null if there is none, it failed,
+     * or it has not started yet. Must be called on the main thread.
+     */
+    static <F> F take(Class<F> fragmentClass, String tag) {
+        final long now = SystemClock.elapsedRealtime();
+        final Entry entry;
+        synchronized (sInstances) {
+            entry = sInstances.remove(keyOf(fragmentClass, tag));
+            evictExpired(now);
+        }
+
+        // Building it here is no slower than waiting for a task that is still queued.
+        if (entry == null || entry.mTask.cancel(false) || entry.isExpired(now)) {
+            return null;
+        }
+
+        try {
+            return fragmentClass.cast(entry.mTask.get());
+        }
+        catch (ExecutionException e) {
+            return null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Drops every prewarmed instance.
+     */
+    static void evictAll() {
+        synchronized (sInstances) {
+            for (Entry entry : sInstances.values()) {
+                entry.mTask.cancel(false);
+            }
+            sInstances.clear();
+        }
+    }
+
+    private static void evictExpired(long now) {
+        final Iterator<Entry> entries = sInstances.values().iterator();
+        while (entries.hasNext()) {
+            final Entry entry = entries.next();
+            if (entry.isExpired(now)) {
+                entry.mTask.cancel(false);
+                entries.remove();
+            }
+        }
+    }
+
+    private static Class<?> load(Class<?> fragmentClass) {
+        try {
+            return Class.forName(fragmentClass.getName(), true, fragmentClass.getClassLoader());
+        }
+        catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String keyOf(Class<?> fragmentClass, String tag) {
+        return fragmentClass.getName() + '#' + tag;
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Entry {
+
+        final FutureTask<Object> mTask;
+        final long mCreatedAt;
+
+        Entry(FutureTask<Object> task, long createdAt) {
+            mTask = task;
+            mCreatedAt = createdAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - mCreatedAt > TIME_TO_LIVE_MILLIS;
+        }
+
+    }
+
+}
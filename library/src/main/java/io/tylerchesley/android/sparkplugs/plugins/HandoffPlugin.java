@@ -0,0 +1,269 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.tylerchesley.android.sparkplugs.RetainedSparkPlug;
+import io.tylerchesley.android.sparkplugs.SparkPlugBase;
+
+/**
+ * Hands a large object to the activity being launched without parceling it into the
+ * {@link Intent}.
+ *
+ * The sender calls {@link #put(Intent, String, Object, Parcelable)}. This stores the object in a
+ * process-wide registry and puts only a short token, plus an optional small fallback state, into
+ * the intent. The receiving activity adds a {@code HandoffPlugin} for the same key, which turns
+ * the token back into the live object in {@code onCreate}.
+ *
+ * Each receiving activity holds a reference to the entry until it finishes. The plugin is a
+ * {@link RetainedSparkPlug}, so the value and the reference are kept across configuration
+ * changes without being released and claimed again. Entries that no activity holds are evicted
+ * after {@link #setTimeToLive(long) a time to live}. After process death, or once the entry is
+ * evicted, the plugin rebuilds the object with its {@link Fallback} from the fallback state.
+ * Since the plugin is retained, the fallback must not hold on to an activity.
+ */
+public class HandoffPlugin<T> extends SparkPlugBase implements RetainedSparkPlug {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60 * 1000;
+
+    private static final String EXTRA_TOKEN = "io.tylerchesley.sparkplugs.handoff.TOKEN:";
+    private static final String EXTRA_STATE = "io.tylerchesley.sparkplugs.handoff.STATE:";
+
+    /**
+     * Distinguishes tokens issued by this process from those issued before a process restart.
+     */
+    private static final String TOKEN_PREFIX = Long.toHexString(System.nanoTime()) + "-";
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final Map<String, Entry> sEntries = new HashMap<String, Entry>();
+    private static final AtomicLong sNextToken = new AtomicLong();
+    private static volatile long sTimeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+//------------------------------------------
+//  Interface
+//------------------------------------------
+
+    public interface Fallback<T> {
+
+        /**
+         * Rebuilds the object when the live one is gone.
+         *
+         * @param state the fallback state passed to {@code put}, or null.
+         */
+        T restore(Activity activity, Parcelable state);
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    public static void put(Intent intent, String key, Object value) {
+        put(intent, key, value, null);
+    }
+
+    /**
+     * Stores the value for the activity launched with the intent.
+     *
+     * @param fallbackState small state from which the receiver's {@link Fallback} can rebuild
+     * the value after process death, or null.
+     */
+    public static void put(Intent intent, String key, Object value, Parcelable fallbackState) {
+        if (value == null) {
+            throw new NullPointerException("Value may not be null.");
+        }
+
+        final String token = TOKEN_PREFIX + sNextToken.incrementAndGet();
+        synchronized (sEntries) {
+            evictExpired(SystemClock.elapsedRealtime());
+            sEntries.put(token, new Entry(value));
+        }
+
+        intent.putExtra(EXTRA_TOKEN + key, token);
+        if (fallbackState != null) {
+            intent.putExtra(EXTRA_STATE + key, fallbackState);
+        }
+    }
+
+    /**
+     * Sets how long an entry that no activity holds is kept. Defaults to
+     * {@link #DEFAULT_TIME_TO_LIVE_MILLIS}.
+     */
+    public static void setTimeToLive(long millis) {
+        sTimeToLiveMillis = millis;
+    }
+
+    private static Object claim(String token) {
+        synchronized (sEntries) {
+            evictExpired(SystemClock.elapsedRealtime());
+            final Entry entry = sEntries.get(token);
+            if (entry == null) {
+                return null;
+            }
+
+            entry.mReferences++;
+            return entry.mValue;
+        }
+    }
+
+    private static void release(String token, boolean finishing) {
+        synchronized (sEntries) {
+            final Entry entry = sEntries.get(token);
+            if (entry == null || --entry.mReferences > 0) {
+                return;
+            }
+
+            if (finishing) {
+                sEntries.remove(token);
+            }
+            else {
+                // Keep it for the activity's next instance, if one comes.
+                entry.mReleasedAt = SystemClock.elapsedRealtime();
+            }
+        }
+    }
+
+    private static void evictExpired(long now) {
+        final long timeToLive = sTimeToLiveMillis;
+        final Iterator<Entry> entries = sEntries.values().iterator();
+        while (entries.hasNext()) {
+            final Entry entry = entries.next();
+            if (entry.mReferences == 0 && now - entry.mReleasedAt > timeToLive) {
+                entries.remove();
+            }
+        }
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final String mKey;
+    private final Class<T> mType;
+    private final Fallback<? extends T> mFallback;
+
+    private String mToken;
+    private T mValue;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public HandoffPlugin(String key, Class<T> type) {
+        this(key, type, null);
+    }
+
+    /**
+     * @param fallback rebuilds the value when the live one is gone, or null to leave it null.
+     */
+    public HandoffPlugin(String key, Class<T> type, Fallback<? extends T> fallback) {
+        if (key == null) {
+            throw new NullPointerException("Key may not be null.");
+        }
+
+        if (type == null) {
+            throw new NullPointerException("Type may not be null.");
+        }
+
+        mKey = key;
+        mType = type;
+        mFallback = fallback;
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Returns the handed-off value, available from {@code onCreate}, or null.
+     */
+    public T get() {
+        return mValue;
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onCreate(Activity activity, Bundle savedInstanceState) {
+        final Intent intent = activity.getIntent();
+        if (intent == null) {
+            return;
+        }
+
+        if (mValue != null) {
+            // Retained across a configuration change; the value and reference are still held.
+            return;
+        }
+
+        final String token = intent.getStringExtra(EXTRA_TOKEN + mKey);
+
+        final Object value = token == null ? null : claim(token);
+        if (value != null) {
+            mToken = token;
+            mValue = mType.cast(value);
+        }
+        else if (mFallback != null) {
+            final Parcelable state = intent.getParcelableExtra(EXTRA_STATE + mKey);
+            mValue = mFallback.restore(activity, state);
+        }
+    }
+
+    @Override
+    public void onDestroy(Activity activity) {
+        if (mToken != null) {
+            release(mToken, activity.isFinishing());
+            mToken = null;
+        }
+        mValue = null;
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Entry {
+
+        final Object mValue;
+        int mReferences;
+        long mReleasedAt = SystemClock.elapsedRealtime();
+
+        Entry(Object value) {
+            mValue = value;
+        }
+
+    }
+
+}
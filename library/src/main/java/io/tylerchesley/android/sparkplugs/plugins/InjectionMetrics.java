@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.util.Log;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dagger.ObjectGraph;
+
+/**
+ * Records how long injection takes per target class, and reports target classes that Dagger has
+ * to inject reflectively because no generated {@code $$InjectAdapter} was found for them.
+ *
+ * Measuring is opt-in and meant for debug builds: call {@link #enable()} early, typically from
+ * {@code Application.onCreate()}. In strict mode, injecting a reflective target throws instead
+ * of logging a warning. Injections through {@link AbstractDaggerApplication} and
+ * {@link DaggerPlugin} are measured.
+ */
+public final class InjectionMetrics {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    private static final String TAG = "InjectionMetrics";
+
+    private static final String ADAPTER_SUFFIX = "$$InjectAdapter";
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static volatile InjectionMetrics sInstance;
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    public static synchronized InjectionMetrics enable() {
+        if (sInstance == null) {
+            sInstance = new InjectionMetrics();
+        }
+        return sInstance;
+    }
+
+    public static synchronized void disable() {
+        sInstance = null;
+    }
+
+    /**
+     * Returns the shared instance, or null if measuring has not been enabled.
+     */
+    public static InjectionMetrics getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Injects the target from the graph, measuring the injection if enabled.
+     */
+    public static <T> T inject(ObjectGraph objectGraph, T target) {
+        final InjectionMetrics metrics = sInstance;
+        if (metrics == null) {
+            return objectGraph.inject(target);
+        }
+
+        final Class<?> targetClass = target.getClass();
+        metrics.checkAdapter(targetClass);
+        final long start = System.nanoTime();
+        final T injected = objectGraph.inject(target);
+        metrics.record(targetClass, System.nanoTime() - start);
+        return injected;
+    }
+
+    private static boolean hasAdapter(Class<?> targetClass) {
+        try {
+            Class.forName(targetClass.getName() + ADAPTER_SUFFIX, false,
+                    targetClass.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Map<Class<?>, Boolean> mAdapters = new HashMap<Class<?>, Boolean>();
+    private final Map<Class<?>, long[]> mTimes = new HashMap<Class<?>, long[]>();
+    private volatile boolean mStrict;
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    private InjectionMetrics() {
+
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    /**
+     * Sets whether injecting a target without a generated adapter throws an
+     * {@link IllegalStateException}. Off by default. Only the target class is checked, not the
+     * classes it depends on, so a dependency bound reflectively goes unnoticed.
+     */
+    public void setStrict(boolean strict) {
+        mStrict = strict;
+    }
+
+    public boolean isStrict() {
+        return mStrict;
+    }
+
+    /**
+     * Returns true if the target class has been injected and has no generated adapter.
+     */
+    public synchronized boolean isReflective(Class<?> targetClass) {
+        return Boolean.FALSE.equals(mAdapters.get(targetClass));
+    }
+
+    public synchronized void reset() {
+        mAdapters.clear();
+        mTimes.clear();
+    }
+
+    /**
+     * Prints the injection count, total and longest time of every target class, slowest in
+     * total first.
+     */
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        final List<Map.Entry<Class<?>, long[]>> entries =
+                new ArrayList<Map.Entry<Class<?>, long[]>>(mTimes.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Class<?>, long[]>>() {
+            @Override
+            public int compare(Map.Entry<Class<?>, long[]> lhs, Map.Entry<Class<?>, long[]> rhs) {
+                final long left = lhs.getValue()[1];
+                final long right = rhs.getValue()[1];
+                return left > right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+
+        writer.print(prefix);
+        writer.println("SparkPlug injection times:");
+        for (Map.Entry<Class<?>, long[]> entry : entries) {
+            final long[] times = entry.getValue();
+            writer.print(prefix);
+            writer.print("  ");
+            writer.print(entry.getKey().getName());
+            writer.print(" count=");
+            writer.print(times[0]);
+            writer.print(" total=");
+            writer.print(times[1] / 1000);
+            writer.print("us max=");
+            writer.print(times[2] / 1000);
+            writer.print("us");
+            if (isReflective(entry.getKey())) {
+                writer.print(" (reflective)");
+            }
+            writer.println();
+        }
+    }
+
+    private void checkAdapter(Class<?> targetClass) {
+        final boolean hasAdapter;
+        final boolean firstCheck;
+        synchronized (this) {
+            final Boolean cached = mAdapters.get(targetClass);
+            firstCheck = cached == null;
+            hasAdapter = firstCheck ? hasAdapter(targetClass) : cached;
+            if (firstCheck) {
+                mAdapters.put(targetClass, hasAdapter);
+            }
+        }
+
+        if (!hasAdapter) {
+            final String message = targetClass.getName() + " has no " + ADAPTER_SUFFIX +
+                    " and is injected reflectively. Is the dagger-compiler processor running?";
+            if (mStrict) {
+                throw new IllegalStateException(message);
+            }
+            if (firstCheck) {
+                Log.w(TAG, message);
+            }
+        }
+    }
+
+    private synchronized void record(Class<?> targetClass, long nanos) {
+        long[] times = mTimes.get(targetClass);
+        if (times == null) {
+            times = new long[3];
+            mTimes.put(targetClass, times);
+        }
+        times[0]++;
+        times[1] += nanos;
+        times[2] = Math.max(times[2], nanos);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.tylerchesley.android.sparkplugs.SparkPlugBase;
+
+/**
+ * Evicts registered caches when the system asks the activity to trim memory.
+ *
+ * Each cache is registered against a {@code TRIM_MEMORY_} level of {@link ComponentCallbacks2}
+ * and is evicted at that level or any higher one, for example UI caches at
+ * {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}. Everything is evicted at
+ * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL},
+ * {@link ComponentCallbacks2#TRIM_MEMORY_COMPLETE} and on {@code onLowMemory}. Registrations are
+ * dropped when the activity is destroyed.
+ */
+public class MemoryEvictionPlugin extends SparkPlugBase {
+
+//------------------------------------------
+//  Interface
+//------------------------------------------
+
+    public interface Evictable {
+
+        void evict();
+
+    }
+
+//------------------------------------------
+//  Static Methods
+//------------------------------------------
+
+    /**
+     * Returns true if a cache registered at {@code registeredLevel} should be evicted when
+     * memory is trimmed to {@code level}.
+     */
+    public static boolean shouldEvict(int registeredLevel, int level) {
+        return level >= registeredLevel ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL ||
+                level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final List<Registration> mRegistrations = new ArrayList<Registration>();
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    public void register(Evictable evictable, int trimLevel) {
+        if (evictable == null) {
+            throw new NullPointerException("Evictable may not be null.");
+        }
+
+        mRegistrations.add(new Registration(evictable, trimLevel));
+    }
+
+    public void unregister(Evictable evictable) {
+        for (int i = mRegistrations.size() - 1; i >= 0; i--) {
+            if (mRegistrations.get(i).mEvictable == evictable) {
+                mRegistrations.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Evicts the caches that {@link #shouldEvict(int, int) should be evicted} at the given level.
+     */
+    public void evict(int level) {
+        for (Registration registration : snapshot()) {
+            if (shouldEvict(registration.mLevel, level)) {
+                registration.mEvictable.evict();
+            }
+        }
+    }
+
+    public void evictAll() {
+        for (Registration registration : snapshot()) {
+            registration.mEvictable.evict();
+        }
+    }
+
+    private Registration[] snapshot() {
+        return mRegistrations.toArray(new Registration[mRegistrations.size()]);
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onTrimMemory(Activity activity, int level) {
+        evict(level);
+    }
+
+    @Override
+    public void onLowMemory(Activity activity) {
+        evictAll();
+    }
+
+    @Override
+    public void onDestroy(Activity activity) {
+        mRegistrations.clear();
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Registration {
+
+        final Evictable mEvictable;
+        final int mLevel;
+
+        Registration(Evictable evictable, int level) {
+            mEvictable = evictable;
+            mLevel = level;
+        }
+
+    }
+
+}
@@ -64,15 +64,31 @@ class SupportFragmentPlugin<F extends Fragment> extends FragmentPlugin<F> {
         mFragment = (F) manager.findFragmentByTag(tag);
 
         if (mFragment == null) {
-            mFragment = (F) Fragment.instantiate(activity, fragmentClass.getName(), arguments);
-            final FragmentTransaction transaction = manager.beginTransaction();
+            arguments = getFragmentArguments(arguments);
+            mFragment = FragmentPrewarmer.take(fragmentClass, tag);
+            if (mFragment != null) {
+                if (arguments != null) {
+                    arguments.setClassLoader(fragmentClass.getClassLoader());
+                }
+                mFragment.setArguments(arguments);
+            }
+            else {
+                mFragment = (F) Fragment.instantiate(activity, fragmentClass.getName(),
+                        arguments);
+            }
+            final Batch batch = getBatch();
+            final FragmentTransaction transaction = batch != null ?
+                    batch.supportTransaction(fragmentActivity) : manager.beginTransaction();
             if (containerId > 0) {
                 transaction.add(containerId, mFragment, tag);
             }
             else {
                 transaction.add(mFragment, tag);
             }
-            transaction.commit();
+
+            if (batch == null) {
+                transaction.commit();
+            }
         }
 
     }
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 Tyler Chesley.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tylerchesley.android.sparkplugs.plugins;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.tylerchesley.android.sparkplugs.SparkPlugBase;
+import io.tylerchesley.sparkplugs.core.PluginExecutors;
+
+/**
+ * Runs background work tied to a lifecycle window of the activity. Use it instead of private
+ * threads or {@code AsyncTask}s.
+ *
+ * A task belongs to one of three windows: {@link #WINDOW_CREATED} from {@code onCreate} to
+ * {@code onDestroy}, {@link #WINDOW_STARTED} from {@code onStart} to {@code onStop}, and
+ * {@link #WINDOW_RESUMED} from {@code onResume} to {@code onPause}. When the window closes, the
+ * task's thread is interrupted and its callback is dropped. Results are delivered on the main
+ * thread, and only while the window is still open. A task submitted while its window is closed
+ * is cancelled right away.
+ *
+ * Tasks run on {@link PluginExecutors#tasks()}, shared by the whole process. Tasks from visible
+ * activities run before tasks from activities in the background; queued tasks move between the
+ * two when the activity starts or stops, if the executor is a {@link ThreadPoolExecutor}. Plugins that submit work from
+ * their own callbacks should declare {@code @DependsOn(TaskExecutorPlugin.class)} so the window
+ * is already open. All methods must be called on the main thread.
+ */
+public class TaskExecutorPlugin extends SparkPlugBase {
+
+//------------------------------------------
+//  Constants
+//------------------------------------------
+
+    public static final int WINDOW_CREATED = 0;
+    public static final int WINDOW_STARTED = 1;
+    public static final int WINDOW_RESUMED = 2;
+
+    private static final int WINDOW_COUNT = 3;
+
+    private static final int LANE_VISIBLE = 0;
+    private static final int LANE_BACKGROUND = 1;
+
+//------------------------------------------
+//  Static Variables
+//------------------------------------------
+
+    private static final AtomicLong sSequence = new AtomicLong();
+
+//------------------------------------------
+//  Interface
+//------------------------------------------
+
+    public interface Callback<T> {
+
+        void onResult(T result);
+
+        void onError(Throwable error);
+
+    }
+
+//------------------------------------------
+//  Variables
+//------------------------------------------
+
+    private final Executor mExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final boolean[] mOpen = new boolean[WINDOW_COUNT];
+    private final int[] mGenerations = new int[WINDOW_COUNT];
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final List<Task<?>>[] mOutstanding = new List[WINDOW_COUNT];
+
+//------------------------------------------
+//  Constructor
+//------------------------------------------
+
+    public TaskExecutorPlugin() {
+        this(PluginExecutors.tasks());
+    }
+
+    /**
+     * @param executor runs the tasks. Tasks are {@link Comparable}, for executors with a
+     * priority queue.
+     */
+    public TaskExecutorPlugin(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor may not be null.");
+        }
+
+        mExecutor = executor;
+        for (int window = 0; window < WINDOW_COUNT; window++) {
+            mOutstanding[window] = new ArrayList<Task<?>>();
+        }
+    }
+
+//------------------------------------------
+//  Methods
+//------------------------------------------
+
+    public Future<?> submit(int window, Runnable task) {
+        return submit(window, Executors.callable(task), null);
+    }
+
+    /**
+     * Runs the task in the background and passes its result or failure to the callback, if
+     * any, on the main thread while the window is open.
+     */
+    public <T> Future<T> submit(int window, Callable<T> callable, Callback<? super T> callback) {
+        if (window < 0 || window >= WINDOW_COUNT) {
+            throw new IllegalArgumentException("Unknown window " + window);
+        }
+
+        if (callable == null) {
+            throw new NullPointerException("Task may not be null.");
+        }
+
+        final int lane = mOpen[WINDOW_STARTED] ? LANE_VISIBLE : LANE_BACKGROUND;
+        final Task<T> task = new Task<T>(this, window, mGenerations[window], lane, callable,
+                callback);
+        if (!mOpen[window]) {
+            task.cancel(false);
+            return task;
+        }
+
+        mOutstanding[window].add(task);
+        mExecutor.execute(task);
+        return task;
+    }
+
+    public boolean isOpen(int window) {
+        return mOpen[window];
+    }
+
+    /**
+     * Moves the queued tasks of every open window to the given lane.
+     */
+    private void setLane(int lane) {
+        if (!(mExecutor instanceof ThreadPoolExecutor)) {
+            return;
+        }
+
+        final ThreadPoolExecutor executor = (ThreadPoolExecutor) mExecutor;
+        for (List<Task<?>> outstanding : mOutstanding) {
+            for (Task<?> task : outstanding) {
+                if (task.mLane != lane && executor.remove(task)) {
+                    task.mLane = lane;
+                    executor.execute(task);
+                }
+            }
+        }
+    }
+
+    private void open(int window) {
+        mOpen[window] = true;
+        mGenerations[window]++;
+    }
+
+    private void close(int window) {
+        if (!mOpen[window]) {
+            return;
+        }
+
+        mOpen[window] = false;
+        mGenerations[window]++;
+
+        final List<Task<?>> outstanding = mOutstanding[window];
+        for (Task<?> task : outstanding) {
+            task.cancel(true);
+        }
+        outstanding.clear();
+    }
+
+    /**
+     * Forgets the finished task and, unless it was cancelled or its window has closed since it
+     * was submitted, passes its outcome to its callback.
+     */
+    private <T> void deliver(Task<T> task) {
+        mOutstanding[task.mWindow].remove(task);
+        if (task.isCancelled() || task.mCallback == null ||
+                !mOpen[task.mWindow] || mGenerations[task.mWindow] != task.mGeneration) {
+            return;
+        }
+
+        final T result;
+        try {
+            result = task.get();
+        }
+        catch (ExecutionException e) {
+            task.mCallback.onError(e.getCause());
+            return;
+        }
+        catch (InterruptedException e) {
+            task.mCallback.onError(e);
+            return;
+        }
+        task.mCallback.onResult(result);
+    }
+
+//------------------------------------------
+//  Overridden Methods
+//------------------------------------------
+
+    @Override
+    public void onCreate(Activity activity, Bundle savedInstanceState) {
+        open(WINDOW_CREATED);
+    }
+
+    @Override
+    public void onStart(Activity activity) {
+        open(WINDOW_STARTED);
+        setLane(LANE_VISIBLE);
+    }
+
+    @Override
+    public void onResume(Activity activity) {
+        open(WINDOW_RESUMED);
+    }
+
+    @Override
+    public void onPause(Activity activity) {
+        close(WINDOW_RESUMED);
+    }
+
+    @Override
+    public void onStop(Activity activity) {
+        close(WINDOW_RESUMED);
+        close(WINDOW_STARTED);
+        setLane(LANE_BACKGROUND);
+    }
+
+    @Override
+    public void onDestroy(Activity activity) {
+        for (int window = WINDOW_COUNT - 1; window >= 0; window--) {
+            close(window);
+        }
+    }
+
+//------------------------------------------
+//  Inner Classes
+//------------------------------------------
+
+    private static final class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+
+        final TaskExecutorPlugin mPlugin;
+        final int mWindow;
+        final int mGeneration;
+        /**
+         * Only changed while the task is out of the executor's queue.
+         */
+        volatile int mLane;
+        final long mSequence = sSequence.incrementAndGet();
+        final Callback<? super T> mCallback;
+
+        Task(TaskExecutorPlugin plugin, int window, int generation, int lane,
+             Callable<T> callable, Callback<? super T> callback) {
+            super(callable);
+
+            mPlugin = plugin;
+            mWindow = window;
+            mGeneration = generation;
+            mLane = lane;
+            mCallback = callback;
+        }
+
+        /**
+         * Posts every completion, including cancellation through the returned future, so the
+         * task is always removed from its window's outstanding list.
+         */
+        @Override
+        protected void done() {
+            mPlugin.mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mPlugin.deliver(Task.this);
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            if (mLane != other.mLane) {
+                return mLane < other.mLane ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+
+    }
+
+}